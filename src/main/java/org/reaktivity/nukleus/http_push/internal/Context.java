@@ -32,6 +32,8 @@ import java.util.logging.Logger;
 import org.agrona.ErrorHandler;
 import org.agrona.concurrent.AtomicBuffer;
 import org.agrona.concurrent.IdleStrategy;
+import org.agrona.concurrent.NanoClock;
+import org.agrona.concurrent.SystemNanoClock;
 import org.agrona.concurrent.broadcast.BroadcastTransmitter;
 import org.agrona.concurrent.ringbuffer.ManyToOneRingBuffer;
 import org.agrona.concurrent.ringbuffer.RingBuffer;
@@ -42,7 +44,28 @@ import org.reaktivity.nukleus.http_push.internal.layouts.ControlLayout;
 public class Context implements Closeable
 {
     private static final String MEMORY_FOR_REPEAT_REQUESTS = "nukleus.http_push.memory.for.repeat.requests";
+    private static final String SPILL_CAPACITY = "nukleus.http_push.spill.capacity";
     private static final String MAXIMUM_REQUEST_SIZE = "nukleus.http_push.maximum.request.size";
+    private static final String STORED_REQUEST_SLOT_CAPACITY = "nukleus.http_push.stored.request.slot.capacity";
+    private static final String POLL_FRAME_CAPACITY = "nukleus.http_push.poll.frame.capacity";
+    private static final String POLL_FRAME_SLOT_CAPACITY = "nukleus.http_push.poll.frame.slot.capacity";
+    private static final String RESPONSE_BUFFER_CAPACITY = "nukleus.http_push.response.buffer.capacity";
+    private static final String RESPONSE_BUFFER_SLOT_CAPACITY = "nukleus.http_push.response.buffer.slot.capacity";
+    private static final String MAXIMUM_POOLED_STREAMS = "nukleus.http_push.maximum.pooled.streams";
+    private static final String MAXIMUM_OUTSTANDING_POLLS = "nukleus.http_push.maximum.outstanding.polls";
+    private static final String MAXIMUM_POLLS_PER_CYCLE = "nukleus.http_push.maximum.polls.per.cycle";
+    private static final String POLL_REPLY_TIMEOUT = "nukleus.http_push.poll.reply.timeout";
+    private static final String MAXIMUM_TIMERS_PER_CYCLE = "nukleus.http_push.maximum.timers.per.cycle";
+    private static final String ADAPTIVE_POLL_RESOURCES = "nukleus.http_push.adaptive.poll.resources";
+    private static final String MINIMUM_POLL_INTERVAL = "nukleus.http_push.minimum.poll.interval";
+    private static final String MAXIMUM_POLL_INTERVAL = "nukleus.http_push.maximum.poll.interval";
+    private static final String MAXIMUM_RETRY_AFTER_FACTOR = "nukleus.http_push.maximum.retry.after.factor";
+    private static final String SCHEDULED_POLLS_THRESHOLD = "nukleus.http_push.scheduled.polls.threshold";
+    private static final String UPSTREAM_LATENCY_THRESHOLD = "nukleus.http_push.upstream.latency.threshold";
+    private static final String POLL_JITTER = "nukleus.http_push.poll.jitter";
+    private static final String POLL_SPREAD_GRANULARITY = "nukleus.http_push.poll.spread.granularity";
+    private static final String WARM_RESTART = "nukleus.http_push.warm.restart";
+    private static final String WARM_RESTART_SPREAD = "nukleus.http_push.warm.restart.spread";
 
     private final ControlLayout.Builder controlRW = new ControlLayout.Builder();
 
@@ -55,6 +78,7 @@ public class Context implements Closeable
     private Function<String, Path> sourceStreamsPath;
     private BiFunction<String, String, Path> targetStreamsPath;
     private IdleStrategy idleStrategy;
+    private NanoClock nanoClock;
     private ErrorHandler errorHandler;
     private CountersManager countersManager;
     private Counters counters;
@@ -65,11 +89,34 @@ public class Context implements Closeable
     private WatchService watchService;
 
     private Path streamsPath;
+    private Path statePath;
+    private Path spillPath;
 
     private int maximumControlResponseLength;
 
     public int memoryForRepeatRequests;
+    public int spillCapacity;
     public int maximumRequestSize;
+    public int storedRequestSlotCapacity;
+    public int pollFrameCapacity;
+    public int pollFrameSlotCapacity;
+    public int responseBufferCapacity;
+    public int responseBufferSlotCapacity;
+    public int maximumPooledStreams;
+    public int maximumOutstandingPolls;
+    public int maximumPollsPerCycle;
+    public int pollReplyTimeout;
+    public int maximumTimersPerCycle;
+    public int adaptivePollResources;
+    public int minimumPollInterval;
+    public int maximumPollInterval;
+    public int maximumRetryAfterFactor;
+    public int scheduledPollsThreshold;
+    public int upstreamLatencyThreshold;
+    public int pollJitter;
+    public int pollSpreadGranularity;
+    public boolean warmRestart;
+    public int warmRestartSpread;
 
     public Context readonly(
         boolean readonly)
@@ -133,6 +180,30 @@ public class Context implements Closeable
         return streamsPath;
     }
 
+    public Context statePath(
+        Path statePath)
+    {
+        this.statePath = statePath;
+        return this;
+    }
+
+    public Path statePath()
+    {
+        return statePath;
+    }
+
+    public Context spillPath(
+        Path spillPath)
+    {
+        this.spillPath = spillPath;
+        return this;
+    }
+
+    public Path spillPath()
+    {
+        return spillPath;
+    }
+
     public Context sourceStreamsPath(
         Function<String, Path> sourceStreamsFile)
     {
@@ -169,6 +240,18 @@ public class Context implements Closeable
         return idleStrategy;
     }
 
+    public Context nanoClock(
+        NanoClock nanoClock)
+    {
+        this.nanoClock = nanoClock;
+        return this;
+    }
+
+    public NanoClock nanoClock()
+    {
+        return nanoClock;
+    }
+
     public Context errorHandler(
         ErrorHandler errorHandler)
     {
@@ -270,11 +353,73 @@ public class Context implements Closeable
 
             this.memoryForRepeatRequests = Integer.getInteger(MEMORY_FOR_REPEAT_REQUESTS, streamsBufferCapacity);
 
+            // file backed slots used once memory for repeat requests is full, 0 disables
+            this.spillCapacity = Integer.getInteger(SPILL_CAPACITY, 0);
+
             this.maximumRequestSize = Integer.getInteger(MAXIMUM_REQUEST_SIZE, 8 * 1024);
 
+            // memory for response data read ahead of slow clients, shared by all streams, 0 disables
+            this.responseBufferCapacity = Integer.getInteger(RESPONSE_BUFFER_CAPACITY, 0);
+
+            // response data read ahead of each client, a power of 2
+            this.responseBufferSlotCapacity = Integer.getInteger(RESPONSE_BUFFER_SLOT_CAPACITY, 64 * 1024);
+
+            this.maximumPooledStreams = Integer.getInteger(MAXIMUM_POOLED_STREAMS, 1024);
+
+            // per target, from sending a poll until the end of its reply
+            this.maximumOutstandingPolls = Integer.getInteger(MAXIMUM_OUTSTANDING_POLLS, 256);
+
+            this.maximumPollsPerCycle = Integer.getInteger(MAXIMUM_POLLS_PER_CYCLE, 64);
+
+            // seconds after which a poll whose reply has not ended no longer counts as outstanding
+            this.pollReplyTimeout = Integer.getInteger(POLL_REPLY_TIMEOUT, 60);
+
+            // per source, timers still due carry over to the next duty cycle
+            this.maximumTimersPerCycle = Integer.getInteger(MAXIMUM_TIMERS_PER_CYCLE, 1024);
+
+            // resources whose poll interval adapts to how often they change, 0 keeps intervals as requested
+            this.adaptivePollResources = Integer.getInteger(ADAPTIVE_POLL_RESOURCES, 0);
+
+            // bounds of adapted poll intervals, in seconds
+            this.minimumPollInterval = Integer.getInteger(MINIMUM_POLL_INTERVAL, 1);
+
+            this.maximumPollInterval = Integer.getInteger(MAXIMUM_POLL_INTERVAL, 300);
+
+            // x-retry-after promised to clients is stretched by up to this factor under load, 1 disables
+            this.maximumRetryAfterFactor = Integer.getInteger(MAXIMUM_RETRY_AFTER_FACTOR, 4);
+
+            this.scheduledPollsThreshold = Integer.getInteger(SCHEDULED_POLLS_THRESHOLD, 65536);
+
+            // milliseconds
+            this.upstreamLatencyThreshold = Integer.getInteger(UPSTREAM_LATENCY_THRESHOLD, 1000);
+
+            // percentage of the poll interval a poll may be moved by to spread polls of a route over time
+            this.pollJitter = Integer.getInteger(POLL_JITTER, 10);
+
+            // milliseconds of each interval polls are spread over
+            this.pollSpreadGranularity = Integer.getInteger(POLL_SPREAD_GRANULARITY, 100);
+
+            this.warmRestart = Boolean.getBoolean(WARM_RESTART);
+
+            // milliseconds over which polls recovered on restart are spread
+            this.warmRestartSpread = Integer.getInteger(WARM_RESTART_SPREAD, 5000);
+
+            // stored requests are encoded with interned values and blocks, so they need a fraction of a raw request,
+            // except under warm restart where values are not interned, a power of 2
+            this.storedRequestSlotCapacity = Integer.getInteger(STORED_REQUEST_SLOT_CAPACITY,
+                    warmRestart ? maximumRequestSize : maximumRequestSize / 8);
+
+            // memory for scheduled polls encoded ready to send, apart from stored requests, 0 encodes them when sent
+            this.pollFrameCapacity = Integer.getInteger(POLL_FRAME_CAPACITY, memoryForRepeatRequests);
+
+            // polls encoded larger than this are encoded when sent instead, a power of 2
+            this.pollFrameSlotCapacity = Integer.getInteger(POLL_FRAME_SLOT_CAPACITY, maximumRequestSize / 8);
+
             // default FileSystem cannot be closed
             watchService(FileSystems.getDefault().newWatchService());
             streamsPath(configDirectory.resolve("http-push/streams"));
+            statePath(configDirectory.resolve("http-push/state"));
+            spillPath(configDirectory.resolve("http-push/spill"));
 
             sourceStreamsPath(source -> configDirectory.resolve(format("http-push/streams/%s", source)));
 
@@ -296,6 +441,11 @@ public class Context implements Closeable
             conductorResponses(new BroadcastTransmitter(conductorResponseBuffer()));
 
             concludeCounters();
+
+            if (nanoClock == null)
+            {
+                nanoClock(new SystemNanoClock());
+            }
         }
         catch (Exception ex)
         {
@@ -15,6 +15,9 @@
  */
 package org.reaktivity.nukleus.http_push.internal;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.agrona.concurrent.status.AtomicCounter;
 import org.agrona.concurrent.status.CountersManager;
 
@@ -22,11 +25,31 @@ public final class Counters implements AutoCloseable
 {
     private final AtomicCounter routesSourced;
     private final AtomicCounter streamsSourced;
+    private final AtomicCounter slabHits;
+    private final AtomicCounter slabAdmits;
+    private final AtomicCounter slabEvicts;
+    private final AtomicCounter slabSlotsInUse;
+    private final AtomicCounter slabHighWaterMark;
+    private final AtomicCounter slabAcquireFailures;
+    private final AtomicCounter slabAverageBytesPerSlot;
+    private final Map<String, AtomicCounter> timerLags;
+    private final Map<String, AtomicCounter> routeSlabSlots;
+    private final CountersManager countersManager;
 
     Counters(CountersManager countersManager)
     {
         routesSourced = countersManager.newCounter("routesSourced");
         streamsSourced = countersManager.newCounter("streamsSourced");
+        slabHits = countersManager.newCounter("slabHits");
+        slabAdmits = countersManager.newCounter("slabAdmits");
+        slabEvicts = countersManager.newCounter("slabEvicts");
+        slabSlotsInUse = countersManager.newCounter("slabSlotsInUse");
+        slabHighWaterMark = countersManager.newCounter("slabHighWaterMark");
+        slabAcquireFailures = countersManager.newCounter("slabAcquireFailures");
+        slabAverageBytesPerSlot = countersManager.newCounter("slabAverageBytesPerSlot");
+        timerLags = new HashMap<>();
+        routeSlabSlots = new HashMap<>();
+        this.countersManager = countersManager;
     }
 
     @Override
@@ -34,6 +57,15 @@ public final class Counters implements AutoCloseable
     {
         routesSourced.close();
         streamsSourced.close();
+        slabHits.close();
+        slabAdmits.close();
+        slabEvicts.close();
+        slabSlotsInUse.close();
+        slabHighWaterMark.close();
+        slabAcquireFailures.close();
+        slabAverageBytesPerSlot.close();
+        timerLags.values().forEach(AtomicCounter::close);
+        routeSlabSlots.values().forEach(AtomicCounter::close);
     }
 
     public AtomicCounter routesSourced()
@@ -45,4 +77,56 @@ public final class Counters implements AutoCloseable
     {
         return streamsSourced;
     }
+
+    public AtomicCounter slabHits()
+    {
+        return slabHits;
+    }
+
+    public AtomicCounter slabAdmits()
+    {
+        return slabAdmits;
+    }
+
+    public AtomicCounter slabEvicts()
+    {
+        return slabEvicts;
+    }
+
+    // gauges of the slab of stored requests, published every duty cycle
+    public AtomicCounter slabSlotsInUse()
+    {
+        return slabSlotsInUse;
+    }
+
+    public AtomicCounter slabHighWaterMark()
+    {
+        return slabHighWaterMark;
+    }
+
+    public AtomicCounter slabAcquireFailures()
+    {
+        return slabAcquireFailures;
+    }
+
+    public AtomicCounter slabAverageBytesPerSlot()
+    {
+        return slabAverageBytesPerSlot;
+    }
+
+    // gauge of the slab slots holding requests received on a route
+    public AtomicCounter slabSlots(
+        String sourceName,
+        long sourceRef)
+    {
+        return routeSlabSlots.computeIfAbsent(String.format("slabSlots.%s.%d", sourceName, sourceRef),
+                countersManager::newCounter);
+    }
+
+    // gauge of how many milliseconds the earliest overdue poll timer of a source is behind
+    public AtomicCounter timerLag(
+        String sourceName)
+    {
+        return timerLags.computeIfAbsent(sourceName, s -> countersManager.newCounter(String.format("timerLag.%s", s)));
+    }
 }
@@ -0,0 +1,88 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.http_push.internal.layouts;
+
+import static org.agrona.CloseHelper.quietClose;
+import static org.agrona.IoUtil.createEmptyFile;
+import static org.agrona.IoUtil.mapExistingFile;
+import static org.agrona.IoUtil.unmap;
+
+import java.io.File;
+import java.nio.file.Path;
+
+import org.agrona.concurrent.AtomicBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+
+/**
+ * File backed tier the slab of stored requests spills over into once memory is full. Its contents are not
+ * recovered on restart, the file is always recreated empty.
+ */
+public class SpillLayout extends Layout
+{
+    private final AtomicBuffer spillBuffer = new UnsafeBuffer(new byte[0]);
+
+    public AtomicBuffer spillBuffer()
+    {
+        return spillBuffer;
+    }
+
+    @Override
+    public void close()
+    {
+        unmap(spillBuffer.byteBuffer());
+    }
+
+    public static final class Builder extends Layout.Builder<SpillLayout>
+    {
+        private final SpillLayout layout;
+
+        private Path spillPath;
+        private int spillCapacity;
+
+        public Builder()
+        {
+            this.layout = new SpillLayout();
+        }
+
+        public Builder spillPath(Path spillPath)
+        {
+            this.spillPath = spillPath;
+            return this;
+        }
+
+        public Path spillPath()
+        {
+            return spillPath;
+        }
+
+        public Builder spillCapacity(int spillCapacity)
+        {
+            this.spillCapacity = spillCapacity;
+            return this;
+        }
+
+        @Override
+        public SpillLayout build()
+        {
+            File spillFile = spillPath.toFile();
+
+            quietClose(createEmptyFile(spillFile, spillCapacity));
+            layout.spillBuffer.wrap(mapExistingFile(spillFile, "spill", 0, spillCapacity));
+
+            return layout;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.http_push.internal.layouts;
+
+import static org.agrona.BitUtil.align;
+import static org.agrona.CloseHelper.quietClose;
+import static org.agrona.IoUtil.createEmptyFile;
+import static org.agrona.IoUtil.mapExistingFile;
+import static org.agrona.IoUtil.unmap;
+
+import java.io.File;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Path;
+
+import org.agrona.BitUtil;
+import org.agrona.concurrent.AtomicBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+
+/**
+ * File backed state that survives a restart of the nukleus: the slab of stored requests and the table of polls
+ * pending on them. An existing file is only recovered when its version and capacities match the configuration,
+ * otherwise it is recreated empty.
+ */
+public class StateLayout extends Layout
+{
+    private static final int STATE_VERSION = 3;
+
+    private static final int FIELD_OFFSET_VERSION = 0;
+    private static final int FIELD_SIZE_VERSION = BitUtil.SIZE_OF_INT;
+
+    private static final int FIELD_OFFSET_SLAB_BUFFER_LENGTH = FIELD_OFFSET_VERSION + FIELD_SIZE_VERSION;
+    private static final int FIELD_SIZE_SLAB_BUFFER_LENGTH = BitUtil.SIZE_OF_INT;
+
+    private static final int FIELD_OFFSET_SLOT_CAPACITY = FIELD_OFFSET_SLAB_BUFFER_LENGTH + FIELD_SIZE_SLAB_BUFFER_LENGTH;
+    private static final int FIELD_SIZE_SLOT_CAPACITY = BitUtil.SIZE_OF_INT;
+
+    private static final int FIELD_OFFSET_POLLS_BUFFER_LENGTH = FIELD_OFFSET_SLOT_CAPACITY + FIELD_SIZE_SLOT_CAPACITY;
+    private static final int FIELD_SIZE_POLLS_BUFFER_LENGTH = BitUtil.SIZE_OF_INT;
+
+    private static final int END_OF_META_DATA_OFFSET = align(
+            FIELD_OFFSET_POLLS_BUFFER_LENGTH + FIELD_SIZE_POLLS_BUFFER_LENGTH, BitUtil.CACHE_LINE_LENGTH);
+
+    private final AtomicBuffer slabBuffer = new UnsafeBuffer(new byte[0]);
+    private final AtomicBuffer pollsBuffer = new UnsafeBuffer(new byte[0]);
+
+    private boolean recovered;
+
+    public AtomicBuffer slabBuffer()
+    {
+        return slabBuffer;
+    }
+
+    public AtomicBuffer pollsBuffer()
+    {
+        return pollsBuffer;
+    }
+
+    public boolean recovered()
+    {
+        return recovered;
+    }
+
+    @Override
+    public void close()
+    {
+        unmap(slabBuffer.byteBuffer());
+        unmap(pollsBuffer.byteBuffer());
+    }
+
+    public static final class Builder extends Layout.Builder<StateLayout>
+    {
+        private final StateLayout layout;
+
+        private Path statePath;
+        private int slabCapacity;
+        private int slotCapacity;
+        private int pollsCapacity;
+
+        public Builder()
+        {
+            this.layout = new StateLayout();
+        }
+
+        public Builder statePath(Path statePath)
+        {
+            this.statePath = statePath;
+            return this;
+        }
+
+        public Path statePath()
+        {
+            return statePath;
+        }
+
+        public Builder slabCapacity(int slabCapacity)
+        {
+            this.slabCapacity = slabCapacity;
+            return this;
+        }
+
+        public Builder slotCapacity(int slotCapacity)
+        {
+            this.slotCapacity = slotCapacity;
+            return this;
+        }
+
+        public Builder pollsCapacity(int pollsCapacity)
+        {
+            this.pollsCapacity = pollsCapacity;
+            return this;
+        }
+
+        @Override
+        public StateLayout build()
+        {
+            File stateFile = statePath.toFile();
+            long stateFileLength = END_OF_META_DATA_OFFSET + (long) slabCapacity + pollsCapacity;
+
+            layout.recovered = stateFile.length() == stateFileLength && matchesMetadata(stateFile);
+
+            if (!layout.recovered)
+            {
+                quietClose(createEmptyFile(stateFile, stateFileLength));
+
+                MappedByteBuffer metadata = mapExistingFile(stateFile, "metadata", 0, END_OF_META_DATA_OFFSET);
+                metadata.putInt(FIELD_OFFSET_VERSION, STATE_VERSION);
+                metadata.putInt(FIELD_OFFSET_SLAB_BUFFER_LENGTH, slabCapacity);
+                metadata.putInt(FIELD_OFFSET_SLOT_CAPACITY, slotCapacity);
+                metadata.putInt(FIELD_OFFSET_POLLS_BUFFER_LENGTH, pollsCapacity);
+                unmap(metadata);
+            }
+
+            int slabBufferOffset = END_OF_META_DATA_OFFSET;
+            layout.slabBuffer.wrap(mapExistingFile(stateFile, "slab", slabBufferOffset, slabCapacity));
+
+            int pollsBufferOffset = slabBufferOffset + slabCapacity;
+            layout.pollsBuffer.wrap(mapExistingFile(stateFile, "polls", pollsBufferOffset, pollsCapacity));
+
+            return layout;
+        }
+
+        private boolean matchesMetadata(
+            File stateFile)
+        {
+            MappedByteBuffer metadata = mapExistingFile(stateFile, "metadata", 0, END_OF_META_DATA_OFFSET);
+            try
+            {
+                return metadata.getInt(FIELD_OFFSET_VERSION) == STATE_VERSION &&
+                        metadata.getInt(FIELD_OFFSET_SLAB_BUFFER_LENGTH) == slabCapacity &&
+                        metadata.getInt(FIELD_OFFSET_SLOT_CAPACITY) == slotCapacity &&
+                        metadata.getInt(FIELD_OFFSET_POLLS_BUFFER_LENGTH) == pollsCapacity;
+            }
+            finally
+            {
+                unmap(metadata);
+            }
+        }
+    }
+}
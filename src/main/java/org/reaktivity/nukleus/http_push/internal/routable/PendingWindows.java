@@ -0,0 +1,152 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.http_push.internal.routable;
+
+import org.agrona.collections.Hashing;
+import org.reaktivity.nukleus.http_push.internal.util.function.LongIntConsumer;
+
+/**
+ * Window updates granted to source streams but not yet written, so that the updates a stream is granted during a duty
+ * cycle are written as one frame. Updates are kept in an open addressed table by stream id, and listed in the order
+ * streams were first granted them, to be written in that order.
+ * <b>Each instance of this class is assumed to be used by one and only one thread.</b>
+ */
+public final class PendingWindows
+{
+    // stream ids are never 0, so 0 marks an empty entry
+    private static final long NO_STREAM = 0L;
+
+    private long[] streamIds;
+    private int[] updates;
+    private int[] order;
+    private int mask;
+    private int size;
+
+    public PendingWindows(
+        int initialCapacity)
+    {
+        final int capacity = Integer.highestOneBit(Math.max(initialCapacity, 2) * 2 - 1);
+        this.streamIds = new long[capacity];
+        this.updates = new int[capacity];
+        this.order = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Adds to the update pending for a stream
+     * @param streamId - Id of the stream granted the update
+     * @param update - Bytes granted
+     * @return Bytes pending for the stream, including this update
+     */
+    public int add(
+        long streamId,
+        int update)
+    {
+        int index = Hashing.hash(streamId, mask);
+        while (streamIds[index] != NO_STREAM && streamIds[index] != streamId)
+        {
+            index = (index + 1) & mask;
+        }
+
+        if (streamIds[index] == NO_STREAM)
+        {
+            if (2 * (size + 1) > streamIds.length)
+            {
+                grow();
+                return add(streamId, update);
+            }
+            streamIds[index] = streamId;
+            order[size++] = index;
+        }
+
+        updates[index] += update;
+        return updates[index];
+    }
+
+    /**
+     * Removes the update pending for a stream, to write it now or drop it
+     * @param streamId - Id of the stream
+     * @return Bytes that were pending for the stream, or 0 if none were
+     */
+    public int remove(
+        long streamId)
+    {
+        int index = Hashing.hash(streamId, mask);
+        while (streamIds[index] != NO_STREAM)
+        {
+            if (streamIds[index] == streamId)
+            {
+                // kept in the table until drained, so that probe sequences stay intact
+                final int update = updates[index];
+                updates[index] = 0;
+                return update;
+            }
+            index = (index + 1) & mask;
+        }
+        return 0;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * Removes every pending update, passing each one still pending to the consumer in the order streams were granted them
+     * @param consumer - Writes the update for a stream
+     * @return Number of updates passed to the consumer
+     */
+    public int drain(
+        LongIntConsumer consumer)
+    {
+        int drained = 0;
+        for (int i = 0; i < size; i++)
+        {
+            final int index = order[i];
+            final int update = updates[index];
+            if (update != 0)
+            {
+                consumer.accept(streamIds[index], update);
+                drained++;
+            }
+            streamIds[index] = NO_STREAM;
+            updates[index] = 0;
+        }
+        size = 0;
+        return drained;
+    }
+
+    private void grow()
+    {
+        final long[] oldStreamIds = streamIds;
+        final int[] oldUpdates = updates;
+        final int[] oldOrder = order;
+        final int oldSize = size;
+
+        final int capacity = oldStreamIds.length * 2;
+        this.streamIds = new long[capacity];
+        this.updates = new int[capacity];
+        this.order = new int[capacity];
+        this.mask = capacity - 1;
+        this.size = 0;
+
+        for (int i = 0; i < oldSize; i++)
+        {
+            final int oldIndex = oldOrder[i];
+            add(oldStreamIds[oldIndex], oldUpdates[oldIndex]);
+        }
+    }
+}
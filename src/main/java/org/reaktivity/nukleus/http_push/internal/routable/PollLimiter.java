@@ -0,0 +1,225 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.http_push.internal.routable;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.LongConsumer;
+
+import org.agrona.collections.Long2LongHashMap;
+import org.agrona.collections.LongArrayList;
+import org.agrona.collections.LongLongConsumer;
+
+/**
+ * Bounds the polls outstanding on a target, from sending a poll until the end of its reply, and the polls sent
+ * per duty cycle. Polls beyond either bound wait in order of submission and are sent as the bounds allow.
+ * A poll is outstanding once its request is written, keyed by its stream id, which is also its correlation id.
+ * It is released when its reply ends, when its request is reset, or when no reply has ended within the timeout.
+ * <b>Each instance of this class is assumed to be used by one and only one thread.</b>
+ */
+public final class PollLimiter
+{
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    private final int maximumOutstanding;
+    private final int maximumPerCycle;
+    private final long timeoutMillis;
+    private final LongConsumer released;
+    private final Deque<Runnable> queue;
+    private final Long2LongHashMap sentAt;
+    private final LongArrayList expired;
+    private final LongLongConsumer expireIfDue = this::expireIfDue;
+
+    private int sentThisCycle;
+    private long now;
+    private long nextExpiryAt;
+
+    /**
+     * @param maximumOutstanding - Number of polls that may await the end of their reply
+     * @param maximumPerCycle - Number of polls that may be sent per duty cycle
+     * @param timeoutMillis - Time after which a poll still awaiting the end of its reply is no longer counted
+     * @param released - Notified of the stream id of each poll no longer outstanding
+     */
+    public PollLimiter(
+        int maximumOutstanding,
+        int maximumPerCycle,
+        long timeoutMillis,
+        LongConsumer released)
+    {
+        if (maximumOutstanding <= 0)
+        {
+            throw new IllegalArgumentException("maximumOutstanding is not positive");
+        }
+        if (maximumPerCycle <= 0)
+        {
+            throw new IllegalArgumentException("maximumPerCycle is not positive");
+        }
+        if (timeoutMillis <= 0)
+        {
+            throw new IllegalArgumentException("timeoutMillis is not positive");
+        }
+        this.maximumOutstanding = maximumOutstanding;
+        this.maximumPerCycle = maximumPerCycle;
+        this.timeoutMillis = timeoutMillis;
+        this.released = released;
+        this.queue = new ArrayDeque<>();
+        this.sentAt = new Long2LongHashMap(NO_TIME);
+        this.expired = new LongArrayList();
+        this.nextExpiryAt = Long.MAX_VALUE;
+    }
+
+    /**
+     * Sends a poll now if the bounds allow and no earlier poll is waiting, otherwise queues it
+     * @param poll - Sends the poll when run, calling {@link #onSent(long, long)} once its request is written
+     */
+    public void submit(
+        Runnable poll)
+    {
+        if (sendsNow())
+        {
+            send(poll);
+        }
+        else
+        {
+            queue.offer(poll);
+        }
+    }
+
+    /**
+     * @return true if a poll submitted now would be sent rather than queued
+     */
+    public boolean sendsNow()
+    {
+        return queue.isEmpty() && maySend();
+    }
+
+    /**
+     * Removes a poll that is still waiting to be sent
+     * @param poll - Poll as it was submitted
+     * @return true if the poll was removed, false if it was already sent
+     */
+    public boolean cancel(
+        Runnable poll)
+    {
+        return queue.remove(poll);
+    }
+
+    /**
+     * Accounts for the request of a poll written to the target, until {@link #release(long)} or the timeout
+     * @param streamId - Stream id of the poll request
+     * @param now - Current time in milliseconds
+     */
+    public void onSent(
+        long streamId,
+        long now)
+    {
+        sentAt.put(streamId, now);
+        nextExpiryAt = Math.min(nextExpiryAt, now + timeoutMillis);
+    }
+
+    /**
+     * Accounts for the end of a poll, once its reply ends or its request is reset
+     * @param streamId - Stream id of the poll request
+     * @return true if the poll was outstanding, false if it was already released or timed out
+     */
+    public boolean release(
+        long streamId)
+    {
+        final boolean outstanding = sentAt.remove(streamId) != NO_TIME;
+        if (outstanding)
+        {
+            released.accept(streamId);
+        }
+        return outstanding;
+    }
+
+    /**
+     * Starts a new duty cycle, releasing polls that timed out and sending waiting polls as the bounds allow
+     * @param now - Current time in milliseconds
+     * @return Number of polls sent or timed out
+     */
+    public int process(
+        long now)
+    {
+        sentThisCycle = 0;
+
+        int workCount = 0;
+        if (now >= nextExpiryAt)
+        {
+            workCount += expire(now);
+        }
+        while (!queue.isEmpty() && maySend())
+        {
+            send(queue.poll());
+            workCount++;
+        }
+        return workCount;
+    }
+
+    public int outstanding()
+    {
+        return sentAt.size();
+    }
+
+    public int queued()
+    {
+        return queue.size();
+    }
+
+    private boolean maySend()
+    {
+        return sentAt.size() < maximumOutstanding && sentThisCycle < maximumPerCycle;
+    }
+
+    private void send(
+        Runnable poll)
+    {
+        sentThisCycle++;
+        poll.run();
+    }
+
+    private int expire(
+        long now)
+    {
+        // the reply of a timed out poll is still proxied if it comes, the poll is just no longer counted
+        this.now = now;
+        this.nextExpiryAt = Long.MAX_VALUE;
+        sentAt.longForEach(expireIfDue);
+
+        final int expiredCount = expired.size();
+        for (int i = 0; i < expiredCount; i++)
+        {
+            release(expired.getLong(i));
+        }
+        expired.clear();
+        return expiredCount;
+    }
+
+    private void expireIfDue(
+        long streamId,
+        long sentAtMillis)
+    {
+        final long expiresAt = sentAtMillis + timeoutMillis;
+        if (expiresAt <= now)
+        {
+            expired.addLong(streamId);
+        }
+        else
+        {
+            nextExpiryAt = Math.min(nextExpiryAt, expiresAt);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.http_push.internal.routable;
+
+import static org.agrona.BitUtil.findNextPositivePowerOfTwo;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Spreads the polls of a route over time, so that clients arriving together do not keep polling upstream in
+ * lockstep. Time is divided into buckets, and each poll is moved to the least loaded of a sample of buckets
+ * within a bound of its requested time, given as a percentage of the poll interval. There are enough buckets to
+ * cover the longest poll interval plus its jitter bound, so a bucket is not reused while polls counted in it are due.
+ * <b>Each instance of this class is assumed to be used by one and only one thread.</b>
+ */
+public final class PollSpread
+{
+    private static final int MAX_CANDIDATES = 16;
+
+    private final int jitterPercent;
+    private final long bucketMillis;
+    private final int bucketCount;
+    private final int mask;
+    private final long[] bucketNumbers;
+    private final int[] bucketLoads;
+
+    public PollSpread(
+        int jitterPercent,
+        long bucketMillis,
+        long maximumIntervalMillis)
+    {
+        if (jitterPercent < 0 || jitterPercent > 100)
+        {
+            throw new IllegalArgumentException("jitterPercent is not between 0 and 100");
+        }
+        if (bucketMillis <= 0)
+        {
+            throw new IllegalArgumentException("bucketMillis is not positive");
+        }
+        if (maximumIntervalMillis < 0)
+        {
+            throw new IllegalArgumentException("maximumIntervalMillis is negative");
+        }
+
+        // the bucket of now, up to the bucket of the latest poll at the maximum interval plus its jitter bound
+        final long spanMillis = maximumIntervalMillis + maximumIntervalMillis * jitterPercent / 100;
+        final long spanBuckets = spanMillis / bucketMillis + 2;
+        if (spanBuckets > 1 << 30)
+        {
+            throw new IllegalArgumentException("maximumIntervalMillis spans too many buckets");
+        }
+
+        this.jitterPercent = jitterPercent;
+        this.bucketMillis = bucketMillis;
+        this.bucketCount = findNextPositivePowerOfTwo((int) spanBuckets);
+        this.mask = bucketCount - 1;
+        this.bucketNumbers = new long[bucketCount];
+        this.bucketLoads = new int[bucketCount];
+    }
+
+    /**
+     * Chooses when to send a poll requested for the given time
+     * @param now - Current time in milliseconds
+     * @param requestedAt - Time the poll was requested for, in milliseconds
+     * @return Time to send the poll, no further than the jitter bound from the requested time and never before now,
+     *         or the requested time itself when that is beyond the maximum interval
+     */
+    public long pollAt(
+        long now,
+        long requestedAt)
+    {
+        final long bound = Math.max(requestedAt - now, 0L) * jitterPercent / 100;
+        if (bound == 0L)
+        {
+            return requestedAt;
+        }
+
+        // clamped to the buckets covered from now, so polls in the same bucket number are never counted together
+        final long covered = (now / bucketMillis + bucketCount) * bucketMillis - 1;
+        final long earliest = Math.max(requestedAt - bound, now);
+        final long latest = Math.min(requestedAt + bound, covered);
+        if (earliest > latest)
+        {
+            return requestedAt;
+        }
+
+        final long firstBucket = earliest / bucketMillis;
+        final long span = latest / bucketMillis - firstBucket + 1;
+        final int candidates = (int) Math.min(span, MAX_CANDIDATES);
+
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final long offset = random.nextLong(span / candidates);
+        final int start = random.nextInt(candidates);
+
+        // ties go to the first candidate from a random start, so equally loaded buckets are used evenly
+        long leastLoaded = firstBucket + offset;
+        int leastLoad = Integer.MAX_VALUE;
+        for (int i = 0; i < candidates; i++)
+        {
+            final long bucket = firstBucket + offset + ((start + i) % candidates) * span / candidates;
+            final int load = load(bucket);
+            if (load < leastLoad)
+            {
+                leastLoaded = bucket;
+                leastLoad = load;
+            }
+        }
+
+        bucketLoads[(int) leastLoaded & mask]++;
+
+        final long pollAt = leastLoaded * bucketMillis + random.nextLong(bucketMillis);
+        return Math.min(Math.max(pollAt, earliest), latest);
+    }
+
+    private int load(
+        long bucket)
+    {
+        final int index = (int) bucket & mask;
+        if (bucketNumbers[index] != bucket)
+        {
+            // reused for a later bucket, polls counted for the earlier one have been sent
+            bucketNumbers[index] = bucket;
+            bucketLoads[index] = 0;
+        }
+        return bucketLoads[index];
+    }
+}
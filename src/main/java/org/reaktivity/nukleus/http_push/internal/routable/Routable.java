@@ -20,32 +20,53 @@ import static org.reaktivity.nukleus.http_push.internal.routable.Route.sourceMat
 import static org.reaktivity.nukleus.http_push.internal.routable.Route.sourceRefMatches;
 import static org.reaktivity.nukleus.http_push.internal.routable.Route.targetMatches;
 import static org.reaktivity.nukleus.http_push.internal.routable.Route.targetRefMatches;
+import static org.reaktivity.nukleus.http_push.internal.router.Correlation.NO_ID;
+import static org.reaktivity.nukleus.http_push.internal.router.RouteKind.OUTPUT_ESTABLISHED;
+import static org.reaktivity.nukleus.http_push.internal.router.Subscriptions.NO_KEY;
+import static org.reaktivity.nukleus.http_push.internal.router.Subscriptions.SUBSCRIPTION_TIMEOUT_MILLIS;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
 import java.util.function.LongFunction;
 import java.util.function.LongSupplier;
 import java.util.function.Predicate;
 
 import org.agrona.LangUtil;
+import org.agrona.MutableDirectBuffer;
 import org.agrona.collections.Long2ObjectHashMap;
 import org.agrona.concurrent.AtomicBuffer;
 import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.status.AtomicCounter;
 import org.reaktivity.nukleus.Nukleus;
 import org.reaktivity.nukleus.http_push.internal.Context;
 import org.reaktivity.nukleus.http_push.internal.conductor.Conductor;
 import org.reaktivity.nukleus.http_push.internal.layouts.StreamsLayout;
+import org.reaktivity.nukleus.http_push.internal.routable.stream.PendingPolls;
 import org.reaktivity.nukleus.http_push.internal.routable.stream.Slab;
+import org.reaktivity.nukleus.http_push.internal.routable.stream.StoredHeaders;
 import org.reaktivity.nukleus.http_push.internal.router.Correlation;
+import org.reaktivity.nukleus.http_push.internal.router.LoadFeedback;
+import org.reaktivity.nukleus.http_push.internal.router.PollIntervals;
+import org.reaktivity.nukleus.http_push.internal.router.SlabAdmission;
+import org.reaktivity.nukleus.http_push.internal.router.Subscriptions;
+import org.reaktivity.nukleus.http_push.internal.types.HttpHeaderFW;
+import org.reaktivity.nukleus.http_push.internal.types.ListFW;
+import org.reaktivity.nukleus.http_push.internal.types.stream.HttpBeginExFW;
 import org.reaktivity.nukleus.http_push.internal.util.DelayedTaskScheduler;
+import org.reaktivity.nukleus.http_push.internal.util.DutyCycleClock;
 import org.reaktivity.nukleus.http_push.internal.util.function.LongObjectBiConsumer;
 
 public final class Routable extends Nukleus.Composite
 {
     private static final List<Route> EMPTY_ROUTES = emptyList();
 
+    private final ListFW<HttpHeaderFW> headersRO = new HttpBeginExFW().headers();
+
     private final Context context;
     private final String sourceName;
     private final Conductor conductor;
@@ -57,9 +78,19 @@ public final class Routable extends Nukleus.Composite
     private final LongFunction<Correlation> correlateEstablished;
     private final LongFunction<Correlation> lookupEstablished;
     private final LongSupplier supplyTargetId;
-    private final Slab slab;
+    private final StoredHeaders storedHeaders;
+    private final MutableDirectBuffer decodeBuffer;
+    private final PendingPolls pendingPolls;
+    private final Subscriptions subscriptions;
+    private final SlabAdmission slabAdmission;
+    private final PollIntervals pollIntervals;
+    private final LoadFeedback loadFeedback;
+    private final Slab responseBuffers;
+    private final Slab pollFrames;
 
-    private final DelayedTaskScheduler delayExecutionTimer = new DelayedTaskScheduler();
+    private final DutyCycleClock clock;
+    private final DelayedTaskScheduler delayExecutionTimer;
+    private final AtomicCounter timerLag;
 
 
     public Routable(
@@ -69,7 +100,14 @@ public final class Routable extends Nukleus.Composite
         LongObjectBiConsumer<Correlation> correlateNew,
         LongFunction<Correlation> correlateEstablished,
         LongFunction<Correlation> lookupEstablished,
-        Slab slab)
+        StoredHeaders storedHeaders,
+        PendingPolls pendingPolls,
+        Subscriptions subscriptions,
+        SlabAdmission slabAdmission,
+        PollIntervals pollIntervals,
+        LoadFeedback loadFeedback,
+        Slab responseBuffers,
+        Slab pollFrames)
     {
         this.context = context;
         this.conductor = conductor;
@@ -82,7 +120,18 @@ public final class Routable extends Nukleus.Composite
         this.targetsByName = new HashMap<>();
         this.routesByRef = new Long2ObjectHashMap<>();
         this.supplyTargetId = context.counters().streamsSourced()::increment;
-        this.slab = slab;
+        this.storedHeaders = storedHeaders;
+        this.decodeBuffer = new UnsafeBuffer(new byte[storedHeaders.maximumHeadersSize()]);
+        this.pendingPolls = pendingPolls;
+        this.subscriptions = subscriptions;
+        this.slabAdmission = slabAdmission;
+        this.pollIntervals = pollIntervals;
+        this.loadFeedback = loadFeedback;
+        this.responseBuffers = responseBuffers;
+        this.pollFrames = pollFrames;
+        this.clock = new DutyCycleClock(context.nanoClock());
+        this.delayExecutionTimer = new DelayedTaskScheduler(clock::millis, context.maximumTimersPerCycle);
+        this.timerLag = context.counters().timerLag(sourceName);
     }
 
     @Override
@@ -106,7 +155,10 @@ public final class Routable extends Nukleus.Composite
         try
         {
             final Target target = supplyTarget(targetName);
-            final Route newRoute = new Route(sourceName, sourceRef, target, targetRef);
+            final PollSpread pollSpread = new PollSpread(context.pollJitter, context.pollSpreadGranularity,
+                    context.maximumPollInterval * 1000L);
+            final AtomicCounter slabSlots = context.counters().slabSlots(sourceName, sourceRef);
+            final Route newRoute = new Route(sourceName, sourceRef, target, targetRef, pollSpread, slabSlots);
 
             routesByRef.computeIfAbsent(sourceRef, this::newRoutes)
                        .add(newRoute);
@@ -120,6 +172,13 @@ public final class Routable extends Nukleus.Composite
         }
     }
 
+    public void recoverPolls()
+    {
+        // called before the first duty cycle, so the clock has not been read yet
+        clock.update();
+        pendingPolls.forEach(this::recoverPoll);
+    }
+
     public void doUnroute(
         long correlationId,
         long sourceRef,
@@ -144,6 +203,81 @@ public final class Routable extends Nukleus.Composite
         }
     }
 
+    private void recoverPoll(
+        int slot,
+        String pollSourceName,
+        long sourceRef,
+        String targetName,
+        long targetRef,
+        int requestSize,
+        long pollAt)
+    {
+        if (sourceName.equals(pollSourceName))
+        {
+            final Target target = supplyTarget(targetName);
+            final long targetId = supplyTargetId.getAsLong();
+            final ListFW<HttpHeaderFW> headers = storedHeaders.headers(slot, requestSize, decodeBuffer, headersRO);
+
+            // spread out so that polls falling due while the nukleus was down do not all fire at once
+            final long now = clock.millis();
+            final long rearmAt = Math.max(clock.fromEpochMillis(pollAt), now) +
+                    ThreadLocalRandom.current().nextInt(context.warmRestartSpread + 1);
+
+            // clients polling again after the restart subscribe to the recovered poll rather than polling themselves
+            final long resourceKey = subscriptions.resourceKey(headers);
+            final long routedKey = subscriptions.subscriptionKey(resourceKey, sourceRef, targetName, targetRef);
+            final long subscriptionKey =
+                    subscriptions.lead(routedKey, sourceRef, targetName, targetRef, headers, slot, requestSize, now, rearmAt,
+                            rearmAt + SUBSCRIPTION_TIMEOUT_MILLIS) ? routedKey : NO_KEY;
+
+            final PollLimiter pollLimiter = target.pollLimiter();
+            correlateNew.accept(targetId,
+                    new Correlation(NO_ID, sourceName, OUTPUT_ESTABLISHED, slot, requestSize, subscriptionKey, pollLimiter));
+            pendingPolls.record(slot, clock.toEpochMillis(rearmAt), sourceName, sourceRef, targetName, targetRef,
+                    requestSize);
+
+            final Runnable poll = () ->
+                target.doHttpPoll(targetId, targetRef, storedHeaders.headers(slot, requestSize, decodeBuffer, headersRO));
+            final Runnable timer = () ->
+            {
+                slabAdmission.vacate(slot);
+                loadFeedback.onPollFired();
+                pollLimiter.submit(poll);
+            };
+            loadFeedback.onPollScheduled();
+            delayExecutionTimer.schedule(rearmAt, timer);
+            slabAdmission.occupy(slot, resourceKey, () ->
+                evictRecoveredPoll(targetId, slot, requestSize, subscriptionKey, rearmAt, timer));
+        }
+    }
+
+    private boolean evictRecoveredPoll(
+        long targetId,
+        int slot,
+        int requestSize,
+        long subscriptionKey,
+        long rearmAt,
+        Runnable timer)
+    {
+        if (subscriptions.subscriberCount(subscriptionKey) != 0 || !delayExecutionTimer.cancel(rearmAt, timer))
+        {
+            // clients polling again since the restart wait for its response
+            return false;
+        }
+
+        // no client waits for a recovered poll, so its correlation is removed and it is dropped rather than sent early
+        lookupEstablished.apply(targetId);
+        loadFeedback.onPollCancelled();
+        if (subscriptionKey != NO_KEY)
+        {
+            subscriptions.cancel(subscriptionKey, slot);
+        }
+        pendingPolls.clear(slot);
+        storedHeaders.release(slot, requestSize);
+
+        return true;
+    }
+
     private List<Route> newRoutes(
         long sourceRef)
     {
@@ -169,7 +303,9 @@ public final class Routable extends Nukleus.Composite
         return include(new Source(sourceName, partitionName, layout, writeBuffer,
                                   this::supplyRoutes, supplyTargetId, this::supplyTarget,
                                   correlateNew, lookupEstablished, correlateEstablished,
-                                  this.slab, this.delayExecutionTimer::schedule));
+                                  this.storedHeaders, this.pendingPolls, this.subscriptions, this.slabAdmission,
+                                  this.pollIntervals, this.loadFeedback, this.responseBuffers,
+                                  this.pollFrames, this.delayExecutionTimer, this.clock, context.maximumPooledStreams));
     }
 
     private Target supplyTarget(
@@ -188,13 +324,19 @@ public final class Routable extends Nukleus.Composite
                 .readonly(false)
                 .build();
 
-        return include(new Target(targetName, layout, writeBuffer));
+        final Function<LongConsumer, PollLimiter> supplyPollLimiter = released ->
+            new PollLimiter(context.maximumOutstandingPolls, context.maximumPollsPerCycle,
+                    context.pollReplyTimeout * 1000L, released);
+
+        return include(new Target(targetName, layout, writeBuffer, supplyPollLimiter, loadFeedback, clock));
     }
 
     @Override
     public int process()
     {
-        delayExecutionTimer.process();
-        return super.process();
+        clock.update();
+        final int workCount = delayExecutionTimer.process();
+        timerLag.setOrdered(delayExecutionTimer.lag());
+        return workCount + super.process();
     }
 }
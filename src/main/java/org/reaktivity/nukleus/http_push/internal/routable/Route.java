@@ -18,23 +18,31 @@ package org.reaktivity.nukleus.http_push.internal.routable;
 import java.util.Objects;
 import java.util.function.Predicate;
 
+import org.agrona.concurrent.status.AtomicCounter;
+
 public class Route
 {
     private final String source;
     private final long sourceRef;
     private final Target target;
     private final long targetRef;
+    private final PollSpread pollSpread;
+    private final AtomicCounter slabSlots;
 
     public Route(
         String source,
         long sourceRef,
         Target target,
-        long targetRef)
+        long targetRef,
+        PollSpread pollSpread,
+        AtomicCounter slabSlots)
     {
         this.source = source;
         this.sourceRef = sourceRef;
         this.target = target;
         this.targetRef = targetRef;
+        this.pollSpread = pollSpread;
+        this.slabSlots = slabSlots;
     }
 
     public String source()
@@ -57,6 +65,16 @@ public class Route
         return this.targetRef;
     }
 
+    public PollSpread pollSpread()
+    {
+        return pollSpread;
+    }
+
+    public AtomicCounter slabSlots()
+    {
+        return slabSlots;
+    }
+
     @Override
     public int hashCode()
     {
@@ -29,19 +29,32 @@ import org.agrona.concurrent.MessageHandler;
 import org.agrona.concurrent.ringbuffer.RingBuffer;
 import org.reaktivity.nukleus.Nukleus;
 import org.reaktivity.nukleus.http_push.internal.layouts.StreamsLayout;
+import org.reaktivity.nukleus.http_push.internal.routable.stream.PendingPolls;
 import org.reaktivity.nukleus.http_push.internal.routable.stream.Slab;
+import org.reaktivity.nukleus.http_push.internal.routable.stream.StoredHeaders;
 import org.reaktivity.nukleus.http_push.internal.routable.stream.SourceInputStreamFactory;
 import org.reaktivity.nukleus.http_push.internal.routable.stream.TargetOutputEstablishedStreamFactory;
 import org.reaktivity.nukleus.http_push.internal.router.Correlation;
+import org.reaktivity.nukleus.http_push.internal.router.LoadFeedback;
+import org.reaktivity.nukleus.http_push.internal.router.PollIntervals;
 import org.reaktivity.nukleus.http_push.internal.router.RouteKind;
+import org.reaktivity.nukleus.http_push.internal.router.SlabAdmission;
+import org.reaktivity.nukleus.http_push.internal.router.Subscriptions;
 import org.reaktivity.nukleus.http_push.internal.types.stream.BeginFW;
 import org.reaktivity.nukleus.http_push.internal.types.stream.FrameFW;
 import org.reaktivity.nukleus.http_push.internal.types.stream.ResetFW;
 import org.reaktivity.nukleus.http_push.internal.types.stream.WindowFW;
+import org.reaktivity.nukleus.http_push.internal.util.DelayedTaskScheduler;
+import org.reaktivity.nukleus.http_push.internal.util.DutyCycleClock;
+import org.reaktivity.nukleus.http_push.internal.util.function.LongIntConsumer;
 import org.reaktivity.nukleus.http_push.internal.util.function.LongObjectBiConsumer;
 
 public final class Source implements Nukleus
 {
+    // updates granted to a stream are written once per duty cycle, or as soon as they add up to this many bytes
+    private static final int WINDOW_FLUSH_THRESHOLD = 8192;
+    private static final int INITIAL_PENDING_WINDOWS = 64;
+
     private final FrameFW frameRO = new FrameFW();
     private final BeginFW beginRO = new BeginFW();
 
@@ -55,6 +68,8 @@ public final class Source implements Nukleus
     private final RingBuffer streamsBuffer;
     private final RingBuffer throttleBuffer;
     private final Long2ObjectHashMap<MessageHandler> streams;
+    private final PendingWindows pendingWindows;
+    private final LongIntConsumer writeWindow = this::writeWindow;
 
     private final EnumMap<RouteKind, Supplier<MessageHandler>> streamFactories;
     private final LongFunction<Correlation> lookupEstablished;
@@ -70,8 +85,17 @@ public final class Source implements Nukleus
         LongObjectBiConsumer<Correlation> correlateNew,
         LongFunction<Correlation> correlateEstablished,
         LongFunction<Correlation> lookupEstablished,
-        Slab slab,
-        LongObjectBiConsumer<Runnable> schedule)
+        StoredHeaders storedHeaders,
+        PendingPolls pendingPolls,
+        Subscriptions subscriptions,
+        SlabAdmission slabAdmission,
+        PollIntervals pollIntervals,
+        LoadFeedback loadFeedback,
+        Slab responseBuffers,
+        Slab pollFrames,
+        DelayedTaskScheduler scheduler,
+        DutyCycleClock clock,
+        int maximumPooledStreams)
     {
         this.sourceName = sourceName;
         this.partitionName = partitionName;
@@ -81,12 +105,17 @@ public final class Source implements Nukleus
         this.streamsBuffer = layout.streamsBuffer();
         this.throttleBuffer = layout.throttleBuffer();
         this.streams = new Long2ObjectHashMap<>();
+        this.pendingWindows = new PendingWindows(INITIAL_PENDING_WINDOWS);
 
         this.streamFactories = new EnumMap<>(RouteKind.class);
         this.streamFactories.put(RouteKind.INPUT,
-            new SourceInputStreamFactory(this, supplyRoutes, supplyTargetId, correlateNew, slab, schedule)::newStream);
+            new SourceInputStreamFactory(this, supplyRoutes, supplyTargetId, correlateNew, correlateEstablished, storedHeaders,
+                    pollFrames, pendingPolls, subscriptions, slabAdmission, pollIntervals, loadFeedback, scheduler, clock,
+                    maximumPooledStreams)::newStream);
         this.streamFactories.put(RouteKind.OUTPUT_ESTABLISHED,
-            new TargetOutputEstablishedStreamFactory(this, supplyTarget, supplyTargetId, correlateEstablished, slab)::newStream);
+            new TargetOutputEstablishedStreamFactory(this, supplyTarget, supplyTargetId, correlateEstablished, storedHeaders,
+                    pendingPolls, subscriptions, pollIntervals, loadFeedback, responseBuffers, clock,
+                    writeBuffer.capacity(), maximumPooledStreams)::newStream);
 
         this.lookupEstablished = lookupEstablished;
     }
@@ -94,7 +123,8 @@ public final class Source implements Nukleus
     @Override
     public int process()
     {
-        return streamsBuffer.read(this::handleRead);
+        final int workCount = streamsBuffer.read(this::handleRead);
+        return workCount + pendingWindows.drain(writeWindow);
     }
 
     @Override
@@ -192,24 +222,37 @@ public final class Source implements Nukleus
         final long streamId,
         final int update)
     {
-        final WindowFW window = windowRW.wrap(writeBuffer, 0, writeBuffer.capacity())
-                .streamId(streamId)
-                .update(update)
-                .frames(update)
-                .build();
-
-        throttleBuffer.write(window.typeId(), window.buffer(), window.offset(), window.sizeof());
+        if (pendingWindows.add(streamId, update) >= WINDOW_FLUSH_THRESHOLD)
+        {
+            writeWindow(streamId, pendingWindows.remove(streamId));
+        }
     }
 
     public void doReset(
         final long streamId)
     {
+        // no longer wanted once the stream is reset
+        pendingWindows.remove(streamId);
+
         final ResetFW reset = resetRW.wrap(writeBuffer, 0, writeBuffer.capacity())
                 .streamId(streamId).build();
 
         throttleBuffer.write(reset.typeId(), reset.buffer(), reset.offset(), reset.sizeof());
     }
 
+    private void writeWindow(
+        final long streamId,
+        final int update)
+    {
+        final WindowFW window = windowRW.wrap(writeBuffer, 0, writeBuffer.capacity())
+                .streamId(streamId)
+                .update(update)
+                .frames(update)
+                .build();
+
+        throttleBuffer.write(window.typeId(), window.buffer(), window.offset(), window.sizeof());
+    }
+
     public void removeStream(
         long streamId)
     {
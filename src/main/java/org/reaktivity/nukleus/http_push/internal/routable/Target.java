@@ -16,15 +16,22 @@
 package org.reaktivity.nukleus.http_push.internal.routable;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.agrona.BitUtil.SIZE_OF_BYTE;
+import static org.agrona.BitUtil.SIZE_OF_LONG;
 import static org.reaktivity.nukleus.http_push.internal.util.HttpHeadersUtil.CACHE_SYNC;
 import static org.reaktivity.nukleus.http_push.internal.util.HttpHeadersUtil.INJECTED_DEFAULT_HEADER;
 import static org.reaktivity.nukleus.http_push.internal.util.HttpHeadersUtil.INJECTED_HEADER_AND_NO_CACHE;
 import static org.reaktivity.nukleus.http_push.internal.util.HttpHeadersUtil.INJECTED_HEADER_AND_NO_CACHE_VALUE;
 import static org.reaktivity.nukleus.http_push.internal.util.HttpHeadersUtil.INJECTED_HEADER_DEFAULT_VALUE;
 import static org.reaktivity.nukleus.http_push.internal.util.HttpHeadersUtil.INJECTED_HEADER_NAME;
+import static org.reaktivity.nukleus.http_push.internal.util.HttpHeadersUtil.IS_CACHE_CONTROL_HEADER;
+import static org.reaktivity.nukleus.http_push.internal.util.HttpHeadersUtil.IS_INJECTED_HEADER;
 import static org.reaktivity.nukleus.http_push.internal.util.HttpHeadersUtil.NO_CACHE_CACHE_CONTROL;
+import static org.reaktivity.nukleus.http_push.internal.util.HttpHeadersUtil.encodeHeaders;
 
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
 
 import org.agrona.DirectBuffer;
 import org.agrona.MutableDirectBuffer;
@@ -36,6 +43,7 @@ import org.agrona.concurrent.ringbuffer.RingBuffer;
 import org.reaktivity.nukleus.Nukleus;
 import org.reaktivity.nukleus.http_push.internal.HttpPushNukleus;
 import org.reaktivity.nukleus.http_push.internal.layouts.StreamsLayout;
+import org.reaktivity.nukleus.http_push.internal.router.LoadFeedback;
 import org.reaktivity.nukleus.http_push.internal.types.Flyweight;
 import org.reaktivity.nukleus.http_push.internal.types.HttpHeaderFW;
 import org.reaktivity.nukleus.http_push.internal.types.ListFW;
@@ -46,11 +54,24 @@ import org.reaktivity.nukleus.http_push.internal.types.stream.DataFW;
 import org.reaktivity.nukleus.http_push.internal.types.stream.EndFW;
 import org.reaktivity.nukleus.http_push.internal.types.stream.FrameFW;
 import org.reaktivity.nukleus.http_push.internal.types.stream.HttpBeginExFW;
+import org.reaktivity.nukleus.http_push.internal.types.stream.ResetFW;
+import org.reaktivity.nukleus.http_push.internal.util.DutyCycleClock;
 
 public final class Target implements Nukleus
 {
     private static final DirectBuffer SOURCE_NAME_BUFFER = new UnsafeBuffer(HttpPushNukleus.NAME.getBytes(UTF_8));
 
+    private static final DirectBuffer INJECTED_SYNC_HEADERS = encodeHeaders(
+            INJECTED_HEADER_NAME, INJECTED_HEADER_DEFAULT_VALUE,
+            CACHE_SYNC, "always");
+    private static final DirectBuffer INJECTED_SYNC_AND_NO_CACHE_HEADERS = encodeHeaders(
+            INJECTED_HEADER_NAME, INJECTED_HEADER_AND_NO_CACHE_VALUE,
+            "cache-control", "no-cache",
+            CACHE_SYNC, "always");
+
+    // stream id, source name, source ref and correlation id, before the extension
+    private static final int BEGIN_HEADER_SIZE = 3 * SIZE_OF_LONG + SIZE_OF_BYTE + SOURCE_NAME_BUFFER.capacity();
+
     private final FrameFW frameRO = new FrameFW();
 
     private final BeginFW.Builder beginRW = new BeginFW.Builder();
@@ -59,6 +80,13 @@ public final class Target implements Nukleus
 
     private final HttpBeginExFW.Builder httpBeginExRW = new HttpBeginExFW.Builder();
 
+    private final Consumer<HttpHeaderFW> forwardPollHeader = this::forwardPollHeader;
+    private final MessageHandler handlePollThrottle = this::handlePollThrottle;
+    private MutableDirectBuffer pollBuffer;
+    private int pollLimit;
+    private int pollMaxLimit;
+    private boolean pollForwardsCacheControl;
+
     private final String name;
     private final StreamsLayout layout;
     private final AtomicBuffer writeBuffer;
@@ -66,11 +94,17 @@ public final class Target implements Nukleus
     private final RingBuffer streamsBuffer;
     private final RingBuffer throttleBuffer;
     private final Long2ObjectHashMap<MessageHandler> throttles;
+    private final PollLimiter pollLimiter;
+    private final LoadFeedback loadFeedback;
+    private final DutyCycleClock clock;
 
     public Target(
         String name,
         StreamsLayout layout,
-        AtomicBuffer writeBuffer)
+        AtomicBuffer writeBuffer,
+        Function<LongConsumer, PollLimiter> supplyPollLimiter,
+        LoadFeedback loadFeedback,
+        DutyCycleClock clock)
     {
         this.name = name;
         this.layout = layout;
@@ -78,12 +112,15 @@ public final class Target implements Nukleus
         this.streamsBuffer = layout.streamsBuffer();
         this.throttleBuffer = layout.throttleBuffer();
         this.throttles = new Long2ObjectHashMap<>();
+        this.pollLimiter = supplyPollLimiter.apply(this::onPollReleased);
+        this.loadFeedback = loadFeedback;
+        this.clock = clock;
     }
 
     @Override
     public int process()
     {
-        return throttleBuffer.read(this::handleRead);
+        return throttleBuffer.read(this::handleRead) + pollLimiter.process(clock.millis());
     }
 
     @Override
@@ -104,6 +141,11 @@ public final class Target implements Nukleus
         return name;
     }
 
+    public PollLimiter pollLimiter()
+    {
+        return pollLimiter;
+    }
+
     public void addThrottle(
         long streamId,
         MessageHandler throttle)
@@ -149,7 +191,7 @@ public final class Target implements Nukleus
                 .correlationId(correlationId)
                 .extension(extensions)
                 .build();
-        streamsBuffer.write(begin.typeId(), begin.buffer(), begin.offset(), begin.sizeof());
+        write(begin.typeId(), begin);
     }
 
     public void doHttpBegin(
@@ -166,7 +208,7 @@ public final class Target implements Nukleus
                 .extension(e -> e.set(injectHeaders))
                 .build();
 
-        streamsBuffer.write(begin.typeId(), begin.buffer(), begin.offset(), begin.sizeof());
+        write(begin.typeId(), begin);
     }
 
     public void doHttpBegin2(
@@ -183,7 +225,135 @@ public final class Target implements Nukleus
                 .extension(e -> e.set(visitHttpBeginEx(mutator)))
                 .build();
 
-        streamsBuffer.write(begin.typeId(), begin.buffer(), begin.offset(), begin.sizeof());
+        write(begin.typeId(), begin);
+    }
+
+    /**
+     * Sends a poll request, correlated by its own stream id, for {@link PollLimiter} to account for until it ends
+     */
+    public void doHttpPoll(
+        long targetId,
+        long targetRef,
+        ListFW<HttpHeaderFW> headers)
+    {
+        final int length = beginHttpPoll(writeBuffer, 0, writeBuffer.capacity(), targetId, targetRef, headers);
+        doHttpPoll(targetId, writeBuffer, 0, length);
+    }
+
+    /**
+     * Sends a poll request encoded ahead of time by {@link #encodeHttpPoll(MutableDirectBuffer, int, int, long, long,
+     * ListFW)}, copying it as is
+     * @param targetId - Stream id the poll request was encoded with
+     * @param buffer - Buffer holding the encoded BEGIN frame
+     * @param offset - Offset of the encoded BEGIN frame
+     * @param length - Length of the encoded BEGIN frame
+     */
+    public void doHttpPoll(
+        long targetId,
+        DirectBuffer buffer,
+        int offset,
+        int length)
+    {
+        final long now = clock.millis();
+        if (streamsBuffer.write(BeginFW.TYPE_ID, buffer, offset, length))
+        {
+            doHttpEnd(targetId);
+
+            // outstanding until its reply ends, or until the request is reset if no reply is coming
+            addThrottle(targetId, handlePollThrottle);
+            pollLimiter.onSent(targetId, now);
+            loadFeedback.onPollSent(targetId, now);
+        }
+        else
+        {
+            // never reaches the target, so it is neither outstanding nor awaiting a reply
+            loadFeedback.onWriteFailed();
+        }
+    }
+
+    /**
+     * Encodes the BEGIN frame of a poll request, without the injected headers, to be sent later
+     * @return Length of the encoded BEGIN frame, or 0 if it may not fit before the limit
+     */
+    public int encodeHttpPoll(
+        MutableDirectBuffer buffer,
+        int offset,
+        int limit,
+        long targetId,
+        long targetRef,
+        ListFW<HttpHeaderFW> headers)
+    {
+        if (offset + BEGIN_HEADER_SIZE + headers.sizeof() > limit)
+        {
+            return 0;
+        }
+        return beginHttpPoll(buffer, offset, limit, targetId, targetRef, headers);
+    }
+
+    private void handlePollThrottle(
+        int msgTypeId,
+        DirectBuffer buffer,
+        int index,
+        int length)
+    {
+        if (msgTypeId == ResetFW.TYPE_ID)
+        {
+            frameRO.wrap(buffer, index, index + length);
+            pollLimiter.release(frameRO.streamId());
+        }
+    }
+
+    private void onPollReleased(
+        long targetId)
+    {
+        removeThrottle(targetId);
+        loadFeedback.onPollReleased(targetId);
+    }
+
+    private int beginHttpPoll(
+        MutableDirectBuffer buffer,
+        int offset,
+        int limit,
+        long targetId,
+        long targetRef,
+        ListFW<HttpHeaderFW> headers)
+    {
+        // TODO figure out how to remove just cache-control: no-cache and not all directives
+        this.pollForwardsCacheControl = !headers.anyMatch(INJECTED_HEADER_AND_NO_CACHE) ||
+                                        !headers.anyMatch(NO_CACHE_CACHE_CONTROL);
+
+        final BeginFW begin = beginRW.wrap(buffer, offset, limit)
+                .streamId(targetId)
+                .source(SOURCE_NAME_BUFFER, 0, SOURCE_NAME_BUFFER.capacity())
+                .sourceRef(targetRef)
+                .correlationId(targetId)
+                .extension(e -> e.reset())
+                .build();
+
+        // the headers list has no length prefix, so forwarded headers are copied as is after the empty extension
+        this.pollBuffer = buffer;
+        this.pollLimit = begin.limit();
+        this.pollMaxLimit = limit;
+        headers.forEach(forwardPollHeader);
+        this.pollBuffer = null;
+
+        return pollLimit - offset;
+    }
+
+    private void forwardPollHeader(
+        HttpHeaderFW header)
+    {
+        if (!IS_INJECTED_HEADER.test(header) && (pollForwardsCacheControl || !IS_CACHE_CONTROL_HEADER.test(header)))
+        {
+            final int length = header.sizeof();
+            if (pollLimit + length > pollMaxLimit)
+            {
+                throw new IndexOutOfBoundsException();
+            }
+            pollBuffer.putBytes(pollLimit, header.buffer(), header.offset(), length);
+            pollBuffer.putByte(pollLimit + HttpHeaderFW.FIELD_OFFSET_REPRESENTATION, (byte) 0);
+            pollLimit += length;
+        }
     }
 
     public void doHttpData(
@@ -196,7 +366,7 @@ public final class Target implements Nukleus
                 .extension(e -> e.reset())
                 .build();
 
-        streamsBuffer.write(data.typeId(), data.buffer(), data.offset(), data.sizeof());
+        write(data.typeId(), data);
     }
 
     public void doHttpEnd(
@@ -207,57 +377,74 @@ public final class Target implements Nukleus
                 .streamId(targetId)
                 .extension(e -> e.reset())
                 .build();
-        streamsBuffer.write(end.typeId(), end.buffer(), end.offset(), end.sizeof());
+        write(end.typeId(), end);
     }
 
     public void doH2PushPromise(
         long targetId,
-        ListFW<HttpHeaderFW> headers,
-        Consumer<ListFW.Builder<HttpHeaderFW.Builder, HttpHeaderFW>> mutator)
+        OctetsFW extension)
     {
-
         DataFW data = dataRW.wrap(writeBuffer, 0, writeBuffer.capacity())
             .streamId(targetId)
             .payload(e -> e.reset())
-            .extension(e -> e.set(injectSyncHeaders(mutator, headers)))
+            .extension(e -> e.set(extension))
             .build();
 
-        streamsBuffer.write(data.typeId(), data.buffer(), data.offset(), data.sizeof());
+        write(data.typeId(), data);
+    }
+
+    public int encodeH2PushPromise(
+        MutableDirectBuffer buffer,
+        int offset,
+        int limit,
+        ListFW<HttpHeaderFW> headers,
+        Consumer<ListFW.Builder<HttpHeaderFW.Builder, HttpHeaderFW>> mutator)
+    {
+        final int headersLimit = httpBeginExRW.wrap(buffer, offset, limit)
+                                              .headers(mutator)
+                                              .build()
+                                              .limit();
+
+        // the headers list has no length prefix, so the pre-encoded sync headers are appended as is
+        final DirectBuffer syncHeaders = syncHeaders(headers);
+        if (syncHeaders == null)
+        {
+            return headersLimit - offset;
+        }
+        if (headersLimit + syncHeaders.capacity() > limit)
+        {
+            throw new IndexOutOfBoundsException();
+        }
+        buffer.putBytes(headersLimit, syncHeaders, 0, syncHeaders.capacity());
+        return headersLimit + syncHeaders.capacity() - offset;
+    }
+
+    private void write(
+        int msgTypeId,
+        Flyweight frame)
+    {
+        if (!streamsBuffer.write(msgTypeId, frame.buffer(), frame.offset(), frame.sizeof()))
+        {
+            loadFeedback.onWriteFailed();
+        }
     }
 
-    private Flyweight.Builder.Visitor injectSyncHeaders(
-            Consumer<Builder<HttpHeaderFW.Builder, HttpHeaderFW>> mutator,
+    private DirectBuffer syncHeaders(
             ListFW<HttpHeaderFW> headers)
     {
         if(headers.anyMatch(INJECTED_DEFAULT_HEADER) || headers.anyMatch(INJECTED_HEADER_AND_NO_CACHE))
         {
             // Already injected, NOOP
+            return null;
         }
         else if(headers.anyMatch(NO_CACHE_CACHE_CONTROL))
         {
-            // INJECT HEADER
-            mutator = mutator.andThen(
-                x ->  x.item(h -> h.representation((byte) 0).name(INJECTED_HEADER_NAME).value(INJECTED_HEADER_DEFAULT_VALUE))
-            );
-            mutator = mutator.andThen(
-                x ->  x.item(h -> h.representation((byte) 0).name(CACHE_SYNC).value("always"))
-            );
+            return INJECTED_SYNC_HEADERS;
         }
         else
         {
-            // INJECT HEADER AND NO-CACHE
-            mutator = mutator.andThen(
-                x ->  x.item(h -> h.representation((byte) 0).name(INJECTED_HEADER_NAME).value(INJECTED_HEADER_AND_NO_CACHE_VALUE))
-            );
-            mutator = mutator.andThen(
-                    x ->  x.item(h -> h.representation((byte) 0).name("cache-control").value("no-cache"))
-            );
-            mutator = mutator.andThen(
-                x ->  x.item(h -> h.representation((byte) 0).name(CACHE_SYNC).value("always"))
-            );
+            return INJECTED_SYNC_AND_NO_CACHE_HEADERS;
         }
-        return visitHttpBeginEx(mutator);
-
     }
 
     private Flyweight.Builder.Visitor visitHttpBeginEx(
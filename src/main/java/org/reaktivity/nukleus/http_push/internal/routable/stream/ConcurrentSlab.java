@@ -0,0 +1,151 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.http_push.internal.routable.stream;
+
+import static org.agrona.BitUtil.isPowerOfTwo;
+import static org.reaktivity.nukleus.http_push.internal.routable.stream.Slab.NO_SLOT;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.agrona.MutableDirectBuffer;
+import org.agrona.collections.Hashing;
+import org.agrona.concurrent.UnsafeBuffer;
+
+/**
+ * A slab that may be shared by several threads, so that they draw on one memory budget. Slots in use are tracked
+ * in a bitmap of 64 slots per word, claimed and cleared with compare-and-set, and the search for a free slot starts
+ * at a word chosen by hashing the stream id so that threads seldom contend for the same word.
+ * <p>
+ * Unlike {@link Slab}, buffers are not shared between calls: each caller wraps a view of its own, so any number of
+ * slots may be held at once. A slot must only be used by one thread at a time, from acquire until release.
+ */
+public class ConcurrentSlab
+{
+    private static final int BITS_PER_WORD = Long.SIZE;
+    private static final int WORD_SHIFT = Integer.numberOfTrailingZeros(BITS_PER_WORD);
+
+    private final int slotCapacity;
+    private final int bitsPerSlot;
+    private final int totalSlots;
+    private final int wordMask;
+    private final long lastWordMask;
+    private final MutableDirectBuffer buffer;
+    private final AtomicLongArray used;
+    private final AtomicInteger availableSlots;
+
+    public ConcurrentSlab(int totalCapacity, int slotCapacity)
+    {
+        if (!isPowerOfTwo(totalCapacity))
+        {
+            throw new IllegalArgumentException("totalCapacity is not a power of 2");
+        }
+        if (!isPowerOfTwo(slotCapacity))
+        {
+            throw new IllegalArgumentException("slotCapacity is not a power of 2");
+        }
+        if (slotCapacity > totalCapacity)
+        {
+            throw new IllegalArgumentException("slotCapacity exceeds totalCapacity");
+        }
+        this.slotCapacity = slotCapacity;
+        this.bitsPerSlot = Integer.numberOfTrailingZeros(slotCapacity);
+        this.totalSlots = totalCapacity / slotCapacity;
+        final int words = Math.max(totalSlots >> WORD_SHIFT, 1);
+        this.wordMask = words - 1;
+        // slots beyond a slab of fewer than 64 slots are never free
+        this.lastWordMask = totalSlots < BITS_PER_WORD ? (1L << totalSlots) - 1 : -1L;
+        this.buffer = new UnsafeBuffer(ByteBuffer.allocateDirect(totalCapacity));
+        this.used = new AtomicLongArray(words);
+        this.availableSlots = new AtomicInteger(totalSlots);
+    }
+
+    /**
+     * Reserves a slot for use by the given stream
+     * @param streamId - Stream id
+     * @return Id of the acquired slot, or NO_SLOT if all slots are in use
+     */
+    public int acquire(long streamId)
+    {
+        final int start = Hashing.hash(streamId, wordMask);
+        int word = start;
+        do
+        {
+            long bits = used.get(word);
+            long free = ~bits & lastWordMask;
+            while (free != 0L)
+            {
+                final long bit = Long.lowestOneBit(free);
+                if (used.compareAndSet(word, bits, bits | bit))
+                {
+                    availableSlots.decrementAndGet();
+                    return (word << WORD_SHIFT) + Long.numberOfTrailingZeros(bit);
+                }
+                bits = used.get(word);
+                free = ~bits & lastWordMask;
+            }
+            word = ++word & wordMask;
+        }
+        while (word != start);
+
+        return NO_SLOT;
+    }
+
+    public int totalSlots()
+    {
+        return totalSlots;
+    }
+
+    public int availableSlots()
+    {
+        return availableSlots.get();
+    }
+
+    /**
+     * Wraps a view of the given slot, which can be used to write data into it
+     * @param slot - Id of a previously acquired slot
+     * @param view - Buffer owned by the caller, wrapped over the slot
+     * @return The view
+     */
+    public MutableDirectBuffer buffer(
+        int slot,
+        MutableDirectBuffer view)
+    {
+        assert (used.get(slot >> WORD_SHIFT) & (1L << slot)) != 0L;
+        final long slotAddressOffset = buffer.addressOffset() + ((long) slot << bitsPerSlot);
+        view.wrap(slotAddressOffset, slotCapacity);
+        return view;
+    }
+
+    /**
+     * Releases a slot so it may be used by other streams
+     * @param slot - Id of a previously acquired slot
+     */
+    public void release(int slot)
+    {
+        final int word = slot >> WORD_SHIFT;
+        final long bit = 1L << slot;
+        long bits;
+        do
+        {
+            bits = used.get(word);
+            assert (bits & bit) != 0L;
+        }
+        while (!used.compareAndSet(word, bits, bits & ~bit));
+        availableSlots.incrementAndGet();
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.http_push.internal.routable.stream;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.agrona.BitUtil.SIZE_OF_INT;
+import static org.agrona.BitUtil.SIZE_OF_LONG;
+
+import org.agrona.MutableDirectBuffer;
+
+/**
+ * Table of polls waiting on requests stored in the slab, one record per slab slot, so that they can be re-armed
+ * after a restart when the table and the slab live in a memory mapped file.
+ * <b>Each instance of this class is assumed to be used by one and only one thread.</b>
+ */
+public final class PendingPolls
+{
+    public static final int RECORD_LENGTH = 256;
+    public static final int MAX_NAME_LENGTH = 111;
+
+    private static final int FIELD_OFFSET_POLL_AT = 0;
+    private static final int FIELD_OFFSET_TARGET_REF = FIELD_OFFSET_POLL_AT + SIZE_OF_LONG;
+    private static final int FIELD_OFFSET_REQUEST_SIZE = FIELD_OFFSET_TARGET_REF + SIZE_OF_LONG;
+    private static final int FIELD_OFFSET_SOURCE_REF = FIELD_OFFSET_REQUEST_SIZE + SIZE_OF_INT;
+    private static final int FIELD_OFFSET_SOURCE_NAME = 32;
+    private static final int FIELD_OFFSET_TARGET_NAME = FIELD_OFFSET_SOURCE_NAME + 1 + MAX_NAME_LENGTH;
+
+    private static final long NO_POLL = 0L;
+
+    private final MutableDirectBuffer buffer;
+    private final int recordCount;
+
+    public PendingPolls(
+        MutableDirectBuffer buffer)
+    {
+        this.buffer = buffer;
+        this.recordCount = buffer.capacity() / RECORD_LENGTH;
+    }
+
+    /**
+     * Records a poll scheduled on the request stored in the given slot, replacing any previous record for it.
+     * Polls whose names are too long to be recorded are not recovered.
+     */
+    public void record(
+        int slot,
+        long pollAt,
+        String sourceName,
+        long sourceRef,
+        String targetName,
+        long targetRef,
+        int requestSize)
+    {
+        if (slot < recordCount &&
+            sourceName.length() <= MAX_NAME_LENGTH &&
+            targetName.length() <= MAX_NAME_LENGTH)
+        {
+            final int offset = slot * RECORD_LENGTH;
+            buffer.putLong(offset + FIELD_OFFSET_SOURCE_REF, sourceRef);
+            buffer.putLong(offset + FIELD_OFFSET_TARGET_REF, targetRef);
+            buffer.putInt(offset + FIELD_OFFSET_REQUEST_SIZE, requestSize);
+            putName(offset + FIELD_OFFSET_SOURCE_NAME, sourceName);
+            putName(offset + FIELD_OFFSET_TARGET_NAME, targetName);
+            buffer.putLong(offset + FIELD_OFFSET_POLL_AT, pollAt);
+        }
+    }
+
+    public void clear(
+        int slot)
+    {
+        if (slot < recordCount)
+        {
+            buffer.putLong(slot * RECORD_LENGTH + FIELD_OFFSET_POLL_AT, NO_POLL);
+        }
+    }
+
+    public void forEach(
+        PendingPollConsumer consumer)
+    {
+        for (int slot = 0; slot < recordCount; slot++)
+        {
+            final int offset = slot * RECORD_LENGTH;
+            final long pollAt = buffer.getLong(offset + FIELD_OFFSET_POLL_AT);
+            if (pollAt != NO_POLL)
+            {
+                consumer.accept(
+                    slot,
+                    getName(offset + FIELD_OFFSET_SOURCE_NAME),
+                    buffer.getLong(offset + FIELD_OFFSET_SOURCE_REF),
+                    getName(offset + FIELD_OFFSET_TARGET_NAME),
+                    buffer.getLong(offset + FIELD_OFFSET_TARGET_REF),
+                    buffer.getInt(offset + FIELD_OFFSET_REQUEST_SIZE),
+                    pollAt);
+            }
+        }
+    }
+
+    private void putName(
+        int offset,
+        String name)
+    {
+        // names are ascii, written char by char so that recording does not allocate
+        final int length = name.length();
+        buffer.putByte(offset, (byte) length);
+        for (int i = 0; i < length; i++)
+        {
+            buffer.putByte(offset + 1 + i, (byte) name.charAt(i));
+        }
+    }
+
+    private String getName(
+        int offset)
+    {
+        final int length = buffer.getByte(offset) & 0xff;
+        final byte[] bytes = new byte[length];
+        buffer.getBytes(offset + 1, bytes);
+        return new String(bytes, US_ASCII);
+    }
+
+    @FunctionalInterface
+    public interface PendingPollConsumer
+    {
+        void accept(
+            int slot,
+            String sourceName,
+            long sourceRef,
+            String targetName,
+            long targetRef,
+            int requestSize,
+            long pollAt);
+    }
+}
@@ -23,28 +23,76 @@ import java.util.BitSet;
 import org.agrona.MutableDirectBuffer;
 import org.agrona.collections.Hashing;
 import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.status.AtomicCounter;
 
 /**
  * A chunk of shared memory for temporary storage of data. This is logically segmented into a set of
  * slots of equal size. Methods are provided for acquiring a slot, getting a buffer that can be used
  * to store data in it, and releasing the slot once it is no longer needed.
+ * <p>
+ * Slots may also spill over into a second, larger tier such as a memory mapped file, used only once memory is
+ * full. A spilled slot keeps its id, and is moved back into memory when its buffer is next used while memory has
+ * room again.
  * <b>Each instance of this class is assumed to be used by one and only one thread.</b>
  */
 public class Slab
 {
-    static final int NO_SLOT = -1;
+    public static final int NO_SLOT = -1;
 
     private final MutableDirectBuffer mutableFW = new UnsafeBuffer(new byte[0]);
 
     private final int slotCapacity;
     private final int bitsPerSlot;
     private final int mask;
+    private final int memorySlots;
+    private final int spillMask;
+    private final int totalSlots;
     private final MutableDirectBuffer buffer;
+    private final MutableDirectBuffer spillBuffer;
     private final BitSet used;
 
+    // locations of slots by id, from memory slots followed by spill slots, identity while nothing spills
+    private final BitSet occupied;
+    private final int[] locations;
+
+    // usage, published as gauges
+    private final int[] storedSizes;
+    private final AtomicCounter[] routeSlots;
+    private long storedBytes;
+    private int highWaterMark;
+    private long acquireFailures;
+
     private int availableSlots;
+    private int availableMemorySlots;
 
     public Slab(int totalCapacity, int slotCapacity)
+    {
+        this(new UnsafeBuffer(ByteBuffer.allocateDirect(totalCapacity)), totalCapacity, null, slotCapacity);
+    }
+
+    /**
+     * Creates a slab over existing memory, such as a memory mapped file, whose contents are kept
+     * @param buffer - Memory to be segmented into slots, its capacity must be a power of 2
+     * @param slotCapacity - Capacity of each slot
+     */
+    public Slab(MutableDirectBuffer buffer, int slotCapacity)
+    {
+        this(buffer, buffer.capacity(), null, slotCapacity);
+    }
+
+    /**
+     * Creates a slab that spills over into a second tier once its memory is full
+     * @param buffer - Memory to be segmented into slots, its capacity must be a power of 2
+     * @param spillBuffer - Memory used once the first is full, such as a memory mapped file, its capacity must be a
+     *                      power of 2
+     * @param slotCapacity - Capacity of each slot
+     */
+    public Slab(MutableDirectBuffer buffer, MutableDirectBuffer spillBuffer, int slotCapacity)
+    {
+        this(buffer, buffer.capacity(), spillBuffer, slotCapacity);
+    }
+
+    private Slab(MutableDirectBuffer buffer, int totalCapacity, MutableDirectBuffer spillBuffer, int slotCapacity)
     {
         if (!isPowerOfTwo(totalCapacity))
         {
@@ -58,13 +106,27 @@ public class Slab
         {
             throw new IllegalArgumentException("slotCapacity exceeds totalCapacity");
         }
+        if (spillBuffer != null && (!isPowerOfTwo(spillBuffer.capacity()) || slotCapacity > spillBuffer.capacity()))
+        {
+            throw new IllegalArgumentException("spill capacity is not a power of 2 of at least slotCapacity");
+        }
         this.slotCapacity = slotCapacity;
         this.bitsPerSlot = Integer.numberOfTrailingZeros(slotCapacity);
-        int totalSlots = totalCapacity / slotCapacity;
-        this.mask = totalSlots - 1;
-        this.buffer = new UnsafeBuffer(ByteBuffer.allocateDirect(totalCapacity));
+        int memorySlots = totalCapacity / slotCapacity;
+        int spillSlots = spillBuffer != null ? spillBuffer.capacity() / slotCapacity : 0;
+        this.mask = memorySlots - 1;
+        this.spillMask = spillSlots - 1;
+        this.buffer = buffer;
+        this.spillBuffer = spillBuffer;
+        this.memorySlots = memorySlots;
+        this.totalSlots = memorySlots + spillSlots;
         this.used = new BitSet(totalSlots);
+        this.occupied = spillBuffer != null ? new BitSet(totalSlots) : used;
+        this.locations = spillBuffer != null ? new int[totalSlots] : null;
+        this.storedSizes = new int[totalSlots];
+        this.routeSlots = new AtomicCounter[totalSlots];
         this.availableSlots = totalSlots;
+        this.availableMemorySlots = memorySlots;
     }
 
     /**
@@ -76,19 +138,121 @@ public class Slab
     {
         if (availableSlots == 0)
         {
+            acquireFailures++;
             return NO_SLOT;
         }
-        int slot = Hashing.hash(streamId, mask);
-        while (used.get(slot))
+
+        int location;
+        if (availableMemorySlots != 0)
+        {
+            location = vacant(0, Hashing.hash(streamId, mask), mask);
+            availableMemorySlots--;
+        }
+        else
         {
-            slot = ++slot & mask;
+            location = vacant(memorySlots, Hashing.hash(streamId, spillMask), spillMask);
+        }
+
+        int slot = location;
+        if (locations != null)
+        {
+            occupied.set(location);
+
+            // the id of a location may still be held by a slot moved back into memory
+            while (used.get(slot))
+            {
+                slot = slot + 1 == totalSlots ? 0 : slot + 1;
+            }
+            locations[slot] = location;
         }
         used.set(slot);
         availableSlots--;
+        highWaterMark = Math.max(highWaterMark, totalSlots - availableSlots);
 
         return slot;
     }
 
+    public int totalSlots()
+    {
+        return totalSlots;
+    }
+
+    public int availableSlots()
+    {
+        return availableSlots;
+    }
+
+    public int slotCapacity()
+    {
+        return slotCapacity;
+    }
+
+    /**
+     * @return Most slots in use at once
+     */
+    public int highWaterMark()
+    {
+        return highWaterMark;
+    }
+
+    /**
+     * @return Number of times a slot could not be acquired because all slots were in use
+     */
+    public long acquireFailures()
+    {
+        return acquireFailures;
+    }
+
+    /**
+     * @return Bytes of data stored in the slots in use, as recorded by {@link #stored(int, int, AtomicCounter)}
+     */
+    public long storedBytes()
+    {
+        return storedBytes;
+    }
+
+    /**
+     * Records how much data has been written into a slot, and on behalf of which route
+     * @param slot - Id of a previously acquired slot
+     * @param size - Bytes written into the slot
+     * @param routeSlots - Gauge of the slots used by the route, incremented until the slot is released, or null
+     */
+    public void stored(
+        int slot,
+        int size,
+        AtomicCounter routeSlots)
+    {
+        assert used.get(slot);
+        storedBytes += size - storedSizes[slot];
+        storedSizes[slot] = size;
+        if (routeSlots != null && this.routeSlots[slot] == null)
+        {
+            routeSlots.orderedIncrement();
+            this.routeSlots[slot] = routeSlots;
+        }
+    }
+
+    /**
+     * Marks a slot as in use without acquiring it for a stream, for data recovered from a previous run
+     * @param slot - Id of the slot holding recovered data
+     */
+    public void reserve(int slot)
+    {
+        assert !used.get(slot) && !occupied.get(slot);
+        used.set(slot);
+        if (locations != null)
+        {
+            occupied.set(slot);
+            locations[slot] = slot;
+        }
+        availableSlots--;
+        if (slot < memorySlots)
+        {
+            availableMemorySlots--;
+        }
+        highWaterMark = Math.max(highWaterMark, totalSlots - availableSlots);
+    }
+
     /**
      * Gets a buffer which can be used to write data into the given slot.
      * @param slot - Id of a previously acquired slot
@@ -97,7 +261,15 @@ public class Slab
     public MutableDirectBuffer buffer(int slot)
     {
         assert used.get(slot);
-        final long slotAddressOffset = buffer.addressOffset() + (slot << bitsPerSlot);
+        int location = locations != null ? locations[slot] : slot;
+        if (location >= memorySlots && availableMemorySlots != 0)
+        {
+            location = moveIntoMemory(slot, location);
+        }
+
+        final long slotAddressOffset = location < memorySlots ?
+                buffer.addressOffset() + ((long) location << bitsPerSlot) :
+                spillBuffer.addressOffset() + ((long) (location - memorySlots) << bitsPerSlot);
         mutableFW.wrap(slotAddressOffset, slotCapacity);
         return mutableFW;
     }
@@ -109,8 +281,50 @@ public class Slab
     public void release(int slot)
     {
         assert used.get(slot);
+        final int location = locations != null ? locations[slot] : slot;
         used.clear(slot);
+        occupied.clear(location);
         availableSlots++;
+
+        storedBytes -= storedSizes[slot];
+        storedSizes[slot] = 0;
+        final AtomicCounter routeSlots = this.routeSlots[slot];
+        if (routeSlots != null)
+        {
+            routeSlots.addOrdered(-1L);
+            this.routeSlots[slot] = null;
+        }
+        if (location < memorySlots)
+        {
+            availableMemorySlots++;
+        }
+    }
+
+    private int moveIntoMemory(
+        int slot,
+        int spillLocation)
+    {
+        final int location = vacant(0, Hashing.hash(slot, mask), mask);
+        buffer.putBytes(location << bitsPerSlot, spillBuffer, (spillLocation - memorySlots) << bitsPerSlot, slotCapacity);
+
+        occupied.clear(spillLocation);
+        occupied.set(location);
+        locations[slot] = location;
+        availableMemorySlots--;
+
+        return location;
     }
 
-}
\ No newline at end of file
+    private int vacant(
+        int tierOffset,
+        int start,
+        int tierMask)
+    {
+        int index = start;
+        while (occupied.get(tierOffset + index))
+        {
+            index = ++index & tierMask;
+        }
+        return tierOffset + index;
+    }
+}
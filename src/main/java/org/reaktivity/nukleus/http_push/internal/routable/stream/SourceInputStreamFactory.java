@@ -16,14 +16,21 @@
 package org.reaktivity.nukleus.http_push.internal.routable.stream;
 
 import static org.reaktivity.nukleus.http_push.internal.routable.stream.Slab.NO_SLOT;
+import static org.reaktivity.nukleus.http_push.internal.router.Correlation.NO_ID;
 import static org.reaktivity.nukleus.http_push.internal.router.RouteKind.OUTPUT_ESTABLISHED;
-import static org.reaktivity.nukleus.http_push.internal.util.HttpHeadersUtil.INJECTED_HEADER_AND_NO_CACHE;
-import static org.reaktivity.nukleus.http_push.internal.util.HttpHeadersUtil.INJECTED_HEADER_NAME;
+import static org.reaktivity.nukleus.http_push.internal.router.Subscriptions.NO_KEY;
+import static org.reaktivity.nukleus.http_push.internal.router.Subscriptions.SUBSCRIPTION_TIMEOUT_MILLIS;
+import static org.reaktivity.nukleus.http_push.internal.util.HttpHeadersUtil.IS_INJECTED_HEADER;
 import static org.reaktivity.nukleus.http_push.internal.util.HttpHeadersUtil.IS_POLL_HEADER;
+import static org.reaktivity.nukleus.http_push.internal.util.HttpHeadersUtil.NO_POLL_INTERVAL;
 import static org.reaktivity.nukleus.http_push.internal.util.HttpHeadersUtil.forEachMatch;
+import static org.reaktivity.nukleus.http_push.internal.util.HttpHeadersUtil.parsePollIntervalMillis;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.function.LongFunction;
 import java.util.function.LongSupplier;
 import java.util.function.Predicate;
@@ -31,10 +38,16 @@ import java.util.function.Predicate;
 import org.agrona.DirectBuffer;
 import org.agrona.MutableDirectBuffer;
 import org.agrona.concurrent.MessageHandler;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.reaktivity.nukleus.http_push.internal.routable.PollLimiter;
 import org.reaktivity.nukleus.http_push.internal.routable.Route;
 import org.reaktivity.nukleus.http_push.internal.routable.Source;
 import org.reaktivity.nukleus.http_push.internal.routable.Target;
 import org.reaktivity.nukleus.http_push.internal.router.Correlation;
+import org.reaktivity.nukleus.http_push.internal.router.LoadFeedback;
+import org.reaktivity.nukleus.http_push.internal.router.PollIntervals;
+import org.reaktivity.nukleus.http_push.internal.router.SlabAdmission;
+import org.reaktivity.nukleus.http_push.internal.router.Subscriptions;
 import org.reaktivity.nukleus.http_push.internal.types.HttpHeaderFW;
 import org.reaktivity.nukleus.http_push.internal.types.ListFW;
 import org.reaktivity.nukleus.http_push.internal.types.OctetsFW;
@@ -45,7 +58,8 @@ import org.reaktivity.nukleus.http_push.internal.types.stream.FrameFW;
 import org.reaktivity.nukleus.http_push.internal.types.stream.HttpBeginExFW;
 import org.reaktivity.nukleus.http_push.internal.types.stream.ResetFW;
 import org.reaktivity.nukleus.http_push.internal.types.stream.WindowFW;
-import org.reaktivity.nukleus.http_push.internal.util.HttpHeadersUtil;
+import org.reaktivity.nukleus.http_push.internal.util.DelayedTaskScheduler;
+import org.reaktivity.nukleus.http_push.internal.util.DutyCycleClock;
 import org.reaktivity.nukleus.http_push.internal.util.function.LongObjectBiConsumer;
 
 public final class SourceInputStreamFactory
@@ -57,7 +71,11 @@ public final class SourceInputStreamFactory
     private final DataFW dataRO = new DataFW();
     private final EndFW endRO = new EndFW();
 
-    private final LongObjectBiConsumer<Runnable> scheduler;
+    // decoded polls may be sent while a request is begun, so they must not share its headers
+    private final ListFW<HttpHeaderFW> pollHeadersRO = new HttpBeginExFW().headers();
+
+    private final DelayedTaskScheduler scheduler;
+    private final DutyCycleClock clock;
 
     private final WindowFW windowRO = new WindowFW();
     private final ResetFW resetRO = new ResetFW();
@@ -66,47 +84,183 @@ public final class SourceInputStreamFactory
     private final LongFunction<List<Route>> supplyRoutes;
     private final LongSupplier supplyTargetId;
     private final LongObjectBiConsumer<Correlation> correlateNew;
-    private final Slab slab;
-
-    private static final Predicate<? super HttpHeaderFW> IS_INJECTED_HEADER =
-            h -> INJECTED_HEADER_NAME.equals(h.name().asString());
+    private final LongFunction<Correlation> correlateEstablished;
+    private final StoredHeaders storedHeaders;
+    private final Slab pollFrames;
+    private final MutableDirectBuffer decodeBuffer;
+    private final PendingPolls pendingPolls;
+    private final Subscriptions subscriptions;
+    private final SlabAdmission slabAdmission;
+    private final PollIntervals pollIntervals;
+    private final LoadFeedback loadFeedback;
+    private final Deque<SourceInputStream> pool;
+    private final int maximumPooledStreams;
+    private final Consumer<OctetsFW.Builder> copyBeginExtension = e -> e.set(beginRO.extension());
 
     public SourceInputStreamFactory(
         Source source,
         LongFunction<List<Route>> supplyRoutes,
         LongSupplier supplyTargetId,
         LongObjectBiConsumer<Correlation> correlateNew,
-        Slab slab,
-        LongObjectBiConsumer<Runnable> scheduler)
+        LongFunction<Correlation> correlateEstablished,
+        StoredHeaders storedHeaders,
+        Slab pollFrames,
+        PendingPolls pendingPolls,
+        Subscriptions subscriptions,
+        SlabAdmission slabAdmission,
+        PollIntervals pollIntervals,
+        LoadFeedback loadFeedback,
+        DelayedTaskScheduler scheduler,
+        DutyCycleClock clock,
+        int maximumPooledStreams)
     {
         this.source = source;
         this.supplyRoutes = supplyRoutes;
         this.supplyTargetId = supplyTargetId;
         this.correlateNew = correlateNew;
-        this.slab = slab;
+        this.correlateEstablished = correlateEstablished;
+        this.storedHeaders = storedHeaders;
+        this.pollFrames = pollFrames;
+        this.decodeBuffer = new UnsafeBuffer(new byte[storedHeaders.maximumHeadersSize()]);
+        this.pendingPolls = pendingPolls;
+        this.subscriptions = subscriptions;
+        this.slabAdmission = slabAdmission;
+        this.pollIntervals = pollIntervals;
+        this.loadFeedback = loadFeedback;
         this.scheduler = scheduler;
+        this.clock = clock;
+        this.pool = new ArrayDeque<>();
+        this.maximumPooledStreams = maximumPooledStreams;
     }
 
     public MessageHandler newStream()
     {
-        return new SourceInputStream()::handleStream;
+        SourceInputStream stream = pool.poll();
+        if (stream == null)
+        {
+            stream = new SourceInputStream();
+        }
+        return stream.handleStream;
+    }
+
+    private void doPoll(
+        Target newTarget,
+        long newTargetId,
+        long targetRef,
+        int slotIndex,
+        int storedRequestSize,
+        int frameSlot,
+        int frameLength)
+    {
+        if (frameSlot != NO_SLOT)
+        {
+            // encoded when scheduled, so firing the poll only copies it
+            newTarget.doHttpPoll(newTargetId, pollFrames.buffer(frameSlot), 0, frameLength);
+            pollFrames.release(frameSlot);
+        }
+        else
+        {
+            final ListFW<HttpHeaderFW> headers =
+                    storedHeaders.headers(slotIndex, storedRequestSize, decodeBuffer, pollHeadersRO);
+            newTarget.doHttpPoll(newTargetId, targetRef, headers);
+        }
+    }
+
+    private boolean evictPoll(
+        Target newTarget,
+        long newTargetId,
+        long targetRef,
+        int slotIndex,
+        int storedRequestSize,
+        int frameSlot,
+        int frameLength,
+        long pollAt,
+        Runnable timer)
+    {
+        final Correlation correlation = correlateEstablished.apply(newTargetId);
+        if (correlation == null)
+        {
+            return false;
+        }
+
+        // the slot is freed once evicted, so the poll is evicted only if the limiter sends it rather than queues it
+        final long subscriptionKey = correlation.subscriptionKey();
+        final PollLimiter pollLimiter = newTarget.pollLimiter();
+        if (subscriptions.subscriberCount(subscriptionKey) != 0 || !pollLimiter.sendsNow() ||
+            !scheduler.cancel(pollAt, timer))
+        {
+            // other clients wait for its response, or it may not be sent yet
+            correlateNew.accept(newTargetId, correlation);
+            return false;
+        }
+
+        loadFeedback.onPollCancelled();
+        if (subscriptionKey != NO_KEY)
+        {
+            subscriptions.cancel(subscriptionKey, slotIndex);
+        }
+
+        // sent now and proxied, as if the slab had been full when the request arrived
+        correlateNew.accept(newTargetId, new Correlation(correlation.id(), correlation.source(),
+                correlation.established(), NO_SLOT, 0, NO_KEY, pollLimiter));
+        pollLimiter.submit(() ->
+            doPoll(newTarget, newTargetId, targetRef, slotIndex, storedRequestSize, frameSlot, frameLength));
+        pendingPolls.clear(slotIndex);
+        storedHeaders.release(slotIndex, storedRequestSize);
+
+        return true;
     }
 
     private final class SourceInputStream
     {
+        private final MessageHandler handleStream = this::handleStream;
+        private final MessageHandler handleThrottle = this::handleThrottle;
+
+        private final MessageHandler beforeBegin = this::beforeBegin;
+        private final MessageHandler afterBeginOrData = this::afterBeginOrData;
+        private final MessageHandler afterScheduledPoll = this::afterScheduledPoll;
+        private final MessageHandler afterReplyOrReset = this::afterReplyOrReset;
+
         private MessageHandler streamState;
 
         private long sourceId;
         private Target target;
         private long targetId;
+        private long targetCorrelationId;
+
+        // the poll this stream scheduled, until the stream ends
+        private long pollAt;
+        private Runnable pollTimer;
+        private Runnable pollTask;
+        private int pollFrameSlot = NO_SLOT;
 
         // these are fields do to effectively final forEach
         private int storedRequestSize = 0;
-        private int pollInterval = 0;
+        private int pollIntervalMillis = 0;
 
         private SourceInputStream()
         {
-            this.streamState = this::beforeBegin;
+            this.streamState = beforeBegin;
+        }
+
+        private void recycle()
+        {
+            this.streamState = beforeBegin;
+            this.sourceId = 0L;
+            this.target = null;
+            this.targetId = 0L;
+            this.targetCorrelationId = 0L;
+            this.pollAt = 0L;
+            this.pollTimer = null;
+            this.pollTask = null;
+            this.pollFrameSlot = NO_SLOT;
+            this.storedRequestSize = 0;
+            this.pollIntervalMillis = 0;
+
+            if (pool.size() < maximumPooledStreams)
+            {
+                pool.offer(this);
+            }
         }
 
         private void handleStream(
@@ -165,26 +319,28 @@ public final class SourceInputStreamFactory
             case DataFW.TYPE_ID:
                 break;
             case EndFW.TYPE_ID:
+                // the normal end of a GET, the poll is still sent and its reply correlates to the client
                 target.removeThrottle(targetId);
                 endRO.wrap(buffer, index, index + length);
                 final long streamId = endRO.streamId();
                 source.removeStream(streamId);
+                recycle();
+                break;
+            case ResetFW.TYPE_ID:
+                // the client went away, so the poll is no longer needed
+                cancelPoll();
+                target.removeThrottle(targetId);
+                resetRO.wrap(buffer, index, index + length);
+                source.removeStream(resetRO.streamId());
+                recycle();
                 break;
             default:
+                cancelPoll();
                 processUnexpected(buffer, index, length);
                 break;
             }
         }
 
-        private void afterEnd(
-            int msgTypeId,
-            DirectBuffer buffer,
-            int index,
-            int length)
-        {
-            processUnexpected(buffer, index, length);
-        }
-
         private void afterReplyOrReset(
             int msgTypeId,
             MutableDirectBuffer buffer,
@@ -204,8 +360,11 @@ public final class SourceInputStreamFactory
                 final long streamId = endRO.streamId();
 
                 source.removeStream(streamId);
-
-                this.streamState = this::afterEnd;
+                if (target != null)
+                {
+                    target.removeThrottle(targetId);
+                }
+                recycle();
             }
         }
 
@@ -220,7 +379,7 @@ public final class SourceInputStreamFactory
 
             source.doReset(streamId);
 
-            this.streamState = this::afterReplyOrReset;
+            this.streamState = afterReplyOrReset;
         }
 
         private void processInvalidRequest(
@@ -240,7 +399,7 @@ public final class SourceInputStreamFactory
 
                 replyTo.doHttpEnd(newTargetId);
 
-                this.streamState = this::afterReplyOrReset;
+                this.streamState = afterReplyOrReset;
             }
             else
             {
@@ -275,41 +434,79 @@ public final class SourceInputStreamFactory
                     extension.get(httpBeginExRO::wrap);
                     final ListFW<HttpHeaderFW> headers = httpBeginExRO.headers();
 
-                    int slotIndex = slab.acquire(streamId);
-                    if(slotIndex != NO_SLOT)
+                    // validated before anything is held for it, a poll with an invalid interval is proxied as is
+                    this.pollIntervalMillis = NO_POLL_INTERVAL;
+                    if (headers.anyMatch(IS_INJECTED_HEADER))
+                    {
+                        forEachMatch(headers, IS_POLL_HEADER, h ->
+                        {
+                            this.pollIntervalMillis = parsePollIntervalMillis(h);
+                        });
+                    }
+                    final boolean isPoll = pollIntervalMillis != NO_POLL_INTERVAL;
+                    final long now = clock.millis();
+                    final long resourceKey = isPoll ? subscriptions.resourceKey(headers) : NO_KEY;
+                    if (isPoll)
                     {
-                        final MutableDirectBuffer store = slab.buffer(slotIndex);
-                        storeHeadersForTargetEstablish(headers, store);
+                        this.pollIntervalMillis = pollIntervals.interval(resourceKey, pollIntervalMillis);
+                    }
+                    // responses are only shared between polls routed to the same target the same way
+                    final String targetName = newTarget.name();
+                    final long routedKey = subscriptions.subscriptionKey(resourceKey, sourceRef, targetName, targetRef);
+                    final boolean subscribed = subscriptions.subscribe(routedKey, sourceRef, targetName, targetRef, headers,
+                            targetCorrelationId, now, now + pollIntervalMillis);
+
+                    int slotIndex = subscribed ? NO_SLOT : slabAdmission.acquire(streamId, resourceKey);
+                    if (slotIndex != NO_SLOT && !storeHeadersForTargetEstablish(headers, slotIndex, route))
+                    {
+                        // too large to store even once encoded
+                        storedHeaders.release(slotIndex, 0);
+                        slotIndex = NO_SLOT;
+                    }
+                    if(subscribed || slotIndex != NO_SLOT)
+                    {
+                        long subscriptionKey = NO_KEY;
+                        PollLimiter pollLimiter = null;
 
-                        if(headers.anyMatch(IS_POLL_HEADER) && headers.anyMatch(IS_INJECTED_HEADER))
+                        if (subscribed)
+                        {
+                            // answered from the leading poll's response, so the request need not be kept
+                            slabAdmission.onHit(resourceKey);
+                            this.streamState = afterScheduledPoll;
+                        }
+                        else if(isPoll)
                         {
-                            forEachMatch(headers, IS_POLL_HEADER, h ->
+                            final long pollAt = route.pollSpread().pollAt(now, now + pollIntervalMillis);
+                            if (subscriptions.lead(routedKey, sourceRef, targetName, targetRef, headers, slotIndex,
+                                    storedRequestSize, now, pollAt, pollAt + SUBSCRIPTION_TIMEOUT_MILLIS))
                             {
-                                this.pollInterval = Integer.parseInt(h.value().asString());
-                            });
-                            schedulePoll(newTargetId, targetCorrelationId, newTarget, targetRef, streamId, store, slotIndex);
-                            this.streamState = this::afterScheduledPoll;
+                                subscriptionKey = routedKey;
+                            }
+                            schedulePoll(newTarget, newTargetId, sourceRef, targetRef, slotIndex, resourceKey, pollAt, headers);
+                            pollLimiter = newTarget.pollLimiter();
+                            this.streamState = afterScheduledPoll;
                         }
                         else
                         {
-                            newTarget.doHttpBegin(newTargetId, targetRef, targetCorrelationId, e -> e.set(beginRO.extension()));
-                            newTarget.addThrottle(newTargetId, this::handleThrottle);
-                            this.streamState = this::afterBeginOrData;
+                            newTarget.doHttpBegin(newTargetId, targetRef, targetCorrelationId, copyBeginExtension);
+                            newTarget.addThrottle(newTargetId, handleThrottle);
+                            this.streamState = afterBeginOrData;
                         }
 
                         final Correlation correlation = new Correlation(correlationId, source.routableName(),
-                                OUTPUT_ESTABLISHED, slotIndex, this.storedRequestSize);
+                                OUTPUT_ESTABLISHED, slotIndex, this.storedRequestSize, subscriptionKey, pollLimiter);
                         correlateNew.accept(targetCorrelationId, correlation);
 
                         this.sourceId = newSourceId;
                         this.target = newTarget;
                         this.targetId = newTargetId;
+                        this.targetCorrelationId = targetCorrelationId;
                     }
                     else
                     {
                         // fallback to proxy
-                        newTarget.doHttpBegin(newTargetId, targetRef, targetCorrelationId, e -> e.set(beginRO.extension()));
-                        newTarget.addThrottle(newTargetId, this::handleThrottle);
+                        newTarget.doHttpBegin(newTargetId, targetRef, targetCorrelationId, copyBeginExtension);
+                        newTarget.addThrottle(newTargetId, handleThrottle);
 
                         final Correlation correlation = new Correlation(correlationId, source.routableName(),
                                 OUTPUT_ESTABLISHED, slotIndex, this.storedRequestSize);
@@ -318,7 +515,7 @@ public final class SourceInputStreamFactory
                         this.sourceId = newSourceId;
                         this.target = newTarget;
                         this.targetId = newTargetId;
-                        this.streamState = this::afterBeginOrData;
+                        this.streamState = afterBeginOrData;
                     }
                 }
                 else
@@ -328,46 +525,130 @@ public final class SourceInputStreamFactory
             }
         }
 
-        private void storeHeadersForTargetEstablish(ListFW<HttpHeaderFW> headers, final MutableDirectBuffer store)
+        private void schedulePoll(
+            Target newTarget,
+            long newTargetId,
+            long sourceRef,
+            long targetRef,
+            int slotIndex,
+            long resourceKey,
+            long pollAt,
+            ListFW<HttpHeaderFW> headers)
         {
-           store.putBytes(0, headers.buffer(), headers.offset(), headers.sizeof());
-           this.storedRequestSize = headers.sizeof();
+            final int storedRequestSize = this.storedRequestSize;
+
+            // the request is encoded once as it is to be sent, apart from the slab so that slots only hold stored headers
+            int frameSlot = pollFrames != null ? pollFrames.acquire(newTargetId) : NO_SLOT;
+            int frameLength = 0;
+            if (frameSlot != NO_SLOT)
+            {
+                final MutableDirectBuffer frame = pollFrames.buffer(frameSlot);
+                frameLength = newTarget.encodeHttpPoll(frame, 0, frame.capacity(), newTargetId, targetRef, headers);
+                if (frameLength == 0)
+                {
+                    // too large for a frame slot, so encoded when fired instead
+                    pollFrames.release(frameSlot);
+                    frameSlot = NO_SLOT;
+                }
+                else
+                {
+                    pollFrames.stored(frameSlot, frameLength, null);
+                }
+            }
+            final int pollFrameSlot = frameSlot;
+            final int pollFrameLength = frameLength;
+
+            pendingPolls.record(slotIndex, clock.toEpochMillis(pollAt), source.routableName(), sourceRef, newTarget.name(),
+                    targetRef, storedRequestSize);
+
+            // captures locals only, the stream may be recycled before the poll fires
+            final Runnable poll = () ->
+                doPoll(newTarget, newTargetId, targetRef, slotIndex, storedRequestSize, pollFrameSlot, pollFrameLength);
+            final PollLimiter pollLimiter = newTarget.pollLimiter();
+            final Runnable timer = () ->
+            {
+                slabAdmission.vacate(slotIndex);
+                loadFeedback.onPollFired();
+                pollLimiter.submit(poll);
+            };
+            loadFeedback.onPollScheduled();
+            scheduler.schedule(pollAt, timer);
+            slabAdmission.occupy(slotIndex, resourceKey, () ->
+                evictPoll(newTarget, newTargetId, targetRef, slotIndex, storedRequestSize, pollFrameSlot, pollFrameLength,
+                        pollAt, timer));
+
+            this.pollAt = pollAt;
+            this.pollTimer = timer;
+            this.pollTask = poll;
+            this.pollFrameSlot = pollFrameSlot;
         }
 
-        private void schedulePoll(final long newTargetId, final long targetCorrelationId, final Target newTarget,
-                final long targetRef, final long streamId, DirectBuffer store, int slotIndex)
+        private void cancelPoll()
         {
-            scheduler.accept(System.currentTimeMillis() + (pollInterval * 1000), () ->
+            final Correlation correlation = correlateEstablished.apply(targetCorrelationId);
+            if (correlation == null || pollTimer == null)
+            {
+                // already answered, or subscribed to another client's poll whose response now skips this client
+                return;
+            }
+
+            final int slotIndex = correlation.slabIndex();
+            if (slotIndex == NO_SLOT)
             {
-                final ListFW<HttpHeaderFW> headers = httpBeginExRO.headers().wrap(store, 0, storedRequestSize);
+                // evicted from the slab and sent upstream, so its response is proxied like any other
+                correlateNew.accept(targetCorrelationId, correlation);
+                return;
+            }
+
+            slabAdmission.vacate(slotIndex);
+            final long subscriptionKey = correlation.subscriptionKey();
+            final PollLimiter pollLimiter = correlation.pollLimiter();
 
-                Predicate<HttpHeaderFW> isInjected = h -> INJECTED_HEADER_NAME.equals(h.name().asString());
-                if(headers.anyMatch(INJECTED_HEADER_AND_NO_CACHE))
+            if ((subscriptionKey == NO_KEY || subscriptions.cancel(subscriptionKey, slotIndex)) &&
+                (cancelTimer() || pollLimiter.cancel(pollTask)))
+            {
+                pendingPolls.clear(slotIndex);
+                storedHeaders.release(slotIndex, correlation.slabSlotLimit());
+                if (pollFrameSlot != NO_SLOT)
                 {
-                    if(headers.anyMatch(HttpHeadersUtil.NO_CACHE_CACHE_CONTROL))
-                    {
-                        isInjected = isInjected.or(h -> "cache-control".equals(h.name().asString()));
-                    }
-                    else
-                    {
-                        // TODO figure out how to remove just cache-control: no-cache and not all directives
-                    }
+                    pollFrames.release(pollFrameSlot);
                 }
+            }
+            else
+            {
+                // already sent, or answering subscribers, so the response is only read to release the poll
+                correlateNew.accept(targetCorrelationId, new Correlation(NO_ID, correlation.source(),
+                        correlation.established(), slotIndex, correlation.slabSlotLimit(), subscriptionKey, pollLimiter));
+            }
 
-                Predicate<HttpHeaderFW> toForward = isInjected.negate();
+            this.pollTimer = null;
+            this.pollTask = null;
+            this.pollFrameSlot = NO_SLOT;
+        }
 
-                newTarget.doHttpBegin2(targetId, targetRef, targetId,
-                    hs -> headers.forEach(h ->
-                    {
-                        if(toForward.test(h))
-                        {
-                            hs.item(b -> b.representation((byte) 0)
-                                         .name(h.name())
-                                         .value(h.value()));
-                        }
-                    }));
-                newTarget.doHttpEnd(targetId);
-            });
+        private boolean cancelTimer()
+        {
+            final boolean cancelled = scheduler.cancel(pollAt, pollTimer);
+            if (cancelled)
+            {
+                loadFeedback.onPollCancelled();
+            }
+            return cancelled;
+        }
+
+        private boolean storeHeadersForTargetEstablish(
+            ListFW<HttpHeaderFW> headers,
+            int slotIndex,
+            Route route)
+        {
+            final int storedRequestSize = storedHeaders.store(slotIndex, headers, route.slabSlots());
+            if (storedRequestSize == StoredHeaders.NO_HEADERS)
+            {
+                return false;
+            }
+
+            this.storedRequestSize = storedRequestSize;
+            return true;
         }
 
         private void processData(
@@ -388,10 +669,10 @@ public final class SourceInputStreamFactory
             endRO.wrap(buffer, index, index + length);
             this.target.doHttpEnd(this.targetId);
             final long streamId = endRO.streamId();
-            this.streamState = this::afterEnd;
 
             source.removeStream(streamId);
             target.removeThrottle(targetId);
+            recycle();
         }
 
         private Optional<Route> resolveTarget(
@@ -451,6 +732,9 @@ public final class SourceInputStreamFactory
             resetRO.wrap(buffer, index, index + length);
 
             source.doReset(sourceId);
+            source.removeStream(sourceId);
+            target.removeThrottle(targetId);
+            recycle();
         }
     }
 }
@@ -0,0 +1,614 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.http_push.internal.routable.stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.agrona.BitUtil.SIZE_OF_BYTE;
+import static org.agrona.BitUtil.SIZE_OF_INT;
+import static org.reaktivity.nukleus.http_push.internal.util.HttpHeadersUtil.CACHE_SYNC;
+import static org.reaktivity.nukleus.http_push.internal.util.HttpHeadersUtil.INJECTED_HEADER_NAME;
+import static org.reaktivity.nukleus.http_push.internal.util.HttpHeadersUtil.POLL_HEADER_NAME;
+import static org.reaktivity.nukleus.http_push.internal.util.HttpHeadersUtil.POLL_MILLIS_HEADER_NAME;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.collections.Long2ObjectHashMap;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.status.AtomicCounter;
+import org.reaktivity.nukleus.http_push.internal.types.HttpHeaderFW;
+import org.reaktivity.nukleus.http_push.internal.types.ListFW;
+import org.reaktivity.nukleus.http_push.internal.types.StringFW;
+
+/**
+ * Compact encoding of the request headers stored in slab slots.
+ * <p>
+ * Each header starts with a tag byte. Its low 7 bits index a static table of common header names, or are 127 for a
+ * name that follows literally with its representation. Its high bit tells whether the value follows literally, or is
+ * a reference to a value interned in a table shared by all stored requests. Only long values are interned, such as
+ * cookies, user agents and authorization tokens, so that requests repeating them store them once.
+ * <p>
+ * Requests for the same resource from different clients mostly differ in their credentials. All headers other than
+ * authorization and cookie are interned together as a block, keyed by a hash of their content, so that a slot holds
+ * a reference to the shared block followed by the client's own credentials. Decoded headers list the block's headers
+ * first. Interned values and blocks are reference counted by the slots that refer to them, and kept once unused until
+ * room is needed for others.
+ * <p>
+ * Interning is disabled when slots outlive the nukleus in a memory mapped file, as the tables do not.
+ * <b>Each instance of this class is assumed to be used by one and only one thread.</b>
+ */
+public final class StoredHeaders
+{
+    public static final int NO_HEADERS = -1;
+
+    private static final String[] STATIC_NAMES =
+    {
+        ":method", ":scheme", ":authority", ":path",
+        "accept", "accept-charset", "accept-encoding", "accept-language",
+        "authorization", "cache-control", "cookie", "user-agent",
+        "referer", "origin", "if-none-match", "if-modified-since",
+        "prefer", "pragma", "content-type", "content-length",
+        INJECTED_HEADER_NAME, POLL_HEADER_NAME, POLL_MILLIS_HEADER_NAME, CACHE_SYNC
+    };
+
+    // headers kept per client rather than in a shared block
+    private static final String[] CLIENT_NAMES =
+    {
+        "authorization", "cookie"
+    };
+
+    private static final int SHARED_BLOCK = 0x7e;
+    private static final int LITERAL_NAME = 0x7f;
+    private static final int INTERNED_VALUE = 0x80;
+    private static final int MINIMUM_INTERNED_LENGTH = 16;
+    private static final int BLOCK_REFERENCE_SIZE = SIZE_OF_BYTE + SIZE_OF_INT;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final DirectBuffer[] STATIC_NAME_BUFFERS = asBuffers(STATIC_NAMES);
+    private static final DirectBuffer[] CLIENT_NAME_BUFFERS = asBuffers(CLIENT_NAMES);
+
+    private final HttpHeaderFW headerRO = new HttpHeaderFW();
+
+    private final Slab slab;
+    private final int maximumHeadersSize;
+    private final boolean internValues;
+    private final InternTable values;
+    private final InternTable blocks;
+
+    /**
+     * @param slab - Slab holding the stored headers
+     * @param maximumHeadersSize - Largest size of headers to be stored, once decoded
+     * @param internValues - Whether values and blocks are interned, only while slots do not outlive this instance
+     */
+    public StoredHeaders(
+        Slab slab,
+        int maximumHeadersSize,
+        boolean internValues)
+    {
+        this.slab = slab;
+        this.maximumHeadersSize = maximumHeadersSize;
+        this.internValues = internValues;
+        this.values = new InternTable(internValues ? 4 * slab.totalSlots() : 0);
+        this.blocks = new InternTable(internValues ? slab.totalSlots() : 0);
+    }
+
+    public int maximumHeadersSize()
+    {
+        return maximumHeadersSize;
+    }
+
+    /**
+     * Encodes headers into a slot
+     * @param slot - Id of a previously acquired slot
+     * @param headers - Headers to store
+     * @param routeSlots - Gauge of the slots used by the route the headers were received on, or null
+     * @return Size of the encoded headers, or NO_HEADERS if they do not fit
+     */
+    public int store(
+        int slot,
+        ListFW<HttpHeaderFW> headers,
+        AtomicCounter routeSlots)
+    {
+        if (headers.sizeof() > maximumHeadersSize)
+        {
+            return NO_HEADERS;
+        }
+
+        final MutableDirectBuffer store = slab.buffer(slot);
+        final int capacity = store.capacity();
+        final DirectBuffer buffer = headers.buffer();
+        final int limit = headers.limit();
+
+        final Interned block = internBlock(headers);
+        int size = 0;
+        if (block != null)
+        {
+            if (BLOCK_REFERENCE_SIZE > capacity)
+            {
+                unreference(blocks, block);
+                return NO_HEADERS;
+            }
+            store.putByte(size, (byte) SHARED_BLOCK);
+            store.putInt(size + SIZE_OF_BYTE, block.id);
+            size += BLOCK_REFERENCE_SIZE;
+        }
+
+        for (int offset = headers.offset(); offset < limit; offset = headerRO.limit())
+        {
+            final HttpHeaderFW header = headerRO.wrap(buffer, offset, limit);
+            if (block != null && !isClientHeader(header))
+            {
+                continue;
+            }
+
+            final StringFW name = header.name();
+            final StringFW value = header.value();
+
+            final int nameIndex = header.representation() == 0 ? indexOf(STATIC_NAME_BUFFERS, name) : LITERAL_NAME;
+            final int nameSize = nameIndex == LITERAL_NAME ? SIZE_OF_BYTE + name.sizeof() : 0;
+            final Interned interned = internValue(value);
+            final int valueSize = interned != null ? SIZE_OF_INT : value.sizeof();
+
+            if (size + SIZE_OF_BYTE + nameSize + valueSize > capacity)
+            {
+                if (interned != null)
+                {
+                    unreference(values, interned);
+                }
+                release(store, size);
+                return NO_HEADERS;
+            }
+
+            store.putByte(size, (byte) (nameIndex | (interned != null ? INTERNED_VALUE : 0)));
+            size += SIZE_OF_BYTE;
+
+            if (nameIndex == LITERAL_NAME)
+            {
+                store.putByte(size, header.representation());
+                store.putBytes(size + SIZE_OF_BYTE, buffer, name.offset(), name.sizeof());
+                size += nameSize;
+            }
+
+            if (interned != null)
+            {
+                store.putInt(size, interned.id);
+            }
+            else
+            {
+                store.putBytes(size, buffer, value.offset(), value.sizeof());
+            }
+            size += valueSize;
+        }
+
+        slab.stored(slot, size, routeSlots);
+        return size;
+    }
+
+    /**
+     * Decodes the headers stored in a slot
+     * @param slot - Id of a slot holding stored headers
+     * @param size - Size of the encoded headers
+     * @param decodeBuffer - Buffer of at least maximumHeadersSize owned by the caller, to decode into
+     * @param headersRO - Flyweight wrapped over the decoded headers
+     * @return The decoded headers, valid until the decode buffer is next used
+     */
+    public ListFW<HttpHeaderFW> headers(
+        int slot,
+        int size,
+        MutableDirectBuffer decodeBuffer,
+        ListFW<HttpHeaderFW> headersRO)
+    {
+        final MutableDirectBuffer store = slab.buffer(slot);
+
+        int limit = 0;
+        for (int offset = 0; offset < size;)
+        {
+            final int tag = store.getByte(offset) & 0xff;
+            final int nameIndex = tag & LITERAL_NAME;
+            offset += SIZE_OF_BYTE;
+
+            if (tag == SHARED_BLOCK)
+            {
+                final DirectBuffer block = blocks.get(store.getInt(offset)).buffer;
+                decodeBuffer.putBytes(limit, block, 0, block.capacity());
+                offset += SIZE_OF_INT;
+                limit += block.capacity();
+                continue;
+            }
+
+            if (nameIndex == LITERAL_NAME)
+            {
+                final int nameSize = SIZE_OF_BYTE + (store.getByte(offset + SIZE_OF_BYTE) & 0xff);
+                decodeBuffer.putBytes(limit, store, offset, SIZE_OF_BYTE + nameSize);
+                offset += SIZE_OF_BYTE + nameSize;
+                limit += SIZE_OF_BYTE + nameSize;
+            }
+            else
+            {
+                final DirectBuffer name = STATIC_NAME_BUFFERS[nameIndex];
+                decodeBuffer.putByte(limit, (byte) 0);
+                decodeBuffer.putByte(limit + SIZE_OF_BYTE, (byte) name.capacity());
+                decodeBuffer.putBytes(limit + 2 * SIZE_OF_BYTE, name, 0, name.capacity());
+                limit += 2 * SIZE_OF_BYTE + name.capacity();
+            }
+
+            if ((tag & INTERNED_VALUE) != 0)
+            {
+                final DirectBuffer value = values.get(store.getInt(offset)).buffer;
+                decodeBuffer.putBytes(limit, value, 0, value.capacity());
+                offset += SIZE_OF_INT;
+                limit += value.capacity();
+            }
+            else
+            {
+                final int valueSize = SIZE_OF_BYTE + (store.getByte(offset) & 0xff);
+                decodeBuffer.putBytes(limit, store, offset, valueSize);
+                offset += valueSize;
+                limit += valueSize;
+            }
+        }
+
+        return headersRO.wrap(decodeBuffer, 0, limit);
+    }
+
+    /**
+     * Releases a slot holding stored headers, and the interned values and blocks they refer to
+     * @param slot - Id of a slot holding stored headers
+     * @param size - Size of the encoded headers
+     */
+    public void release(
+        int slot,
+        int size)
+    {
+        release(slab.buffer(slot), size);
+        slab.release(slot);
+    }
+
+    private void release(
+        DirectBuffer store,
+        int size)
+    {
+        for (int offset = 0; offset < size;)
+        {
+            final int tag = store.getByte(offset) & 0xff;
+            offset += SIZE_OF_BYTE;
+
+            if (tag == SHARED_BLOCK)
+            {
+                unreference(blocks, blocks.get(store.getInt(offset)));
+                offset += SIZE_OF_INT;
+                continue;
+            }
+
+            if ((tag & LITERAL_NAME) == LITERAL_NAME)
+            {
+                offset += 2 * SIZE_OF_BYTE + (store.getByte(offset + SIZE_OF_BYTE) & 0xff);
+            }
+
+            if ((tag & INTERNED_VALUE) != 0)
+            {
+                unreference(values, values.get(store.getInt(offset)));
+                offset += SIZE_OF_INT;
+            }
+            else
+            {
+                offset += SIZE_OF_BYTE + (store.getByte(offset) & 0xff);
+            }
+        }
+    }
+
+    private Interned internValue(
+        StringFW value)
+    {
+        if (!internValues || value.sizeof() - SIZE_OF_BYTE < MINIMUM_INTERNED_LENGTH)
+        {
+            return null;
+        }
+
+        final DirectBuffer buffer = value.buffer();
+        final int offset = value.offset();
+        final int length = value.sizeof();
+
+        final long hash = hash(FNV_OFFSET_BASIS, buffer, offset, length);
+        Interned interned = values.find(hash);
+        if (interned == null)
+        {
+            interned = values.add(hash, length);
+            if (interned != null)
+            {
+                interned.buffer.putBytes(0, buffer, offset, length);
+            }
+        }
+        else if (!equals(buffer, offset, interned.buffer, 0, length, interned.buffer.capacity()))
+        {
+            // a colliding value is stored literally
+            return null;
+        }
+
+        if (interned != null)
+        {
+            interned.references++;
+        }
+        return interned;
+    }
+
+    private Interned internBlock(
+        ListFW<HttpHeaderFW> headers)
+    {
+        if (!internValues)
+        {
+            return null;
+        }
+
+        final DirectBuffer buffer = headers.buffer();
+        final int limit = headers.limit();
+
+        long hash = FNV_OFFSET_BASIS;
+        int length = 0;
+        for (int offset = headers.offset(); offset < limit; offset = headerRO.limit())
+        {
+            final HttpHeaderFW header = headerRO.wrap(buffer, offset, limit);
+            if (!isClientHeader(header))
+            {
+                hash = hash(hash, buffer, offset, header.sizeof());
+                length += header.sizeof();
+            }
+        }
+
+        if (length <= BLOCK_REFERENCE_SIZE)
+        {
+            return null;
+        }
+
+        Interned block = blocks.find(hash);
+        if (block == null)
+        {
+            block = blocks.add(hash, length);
+            if (block != null)
+            {
+                copySharedHeaders(headers, block.buffer);
+            }
+        }
+        else if (block.buffer.capacity() != length || !matchesSharedHeaders(headers, block.buffer))
+        {
+            // a colliding block is stored per client
+            return null;
+        }
+
+        if (block != null)
+        {
+            block.references++;
+        }
+        return block;
+    }
+
+    private void copySharedHeaders(
+        ListFW<HttpHeaderFW> headers,
+        MutableDirectBuffer block)
+    {
+        final DirectBuffer buffer = headers.buffer();
+        final int limit = headers.limit();
+
+        int blockOffset = 0;
+        for (int offset = headers.offset(); offset < limit; offset = headerRO.limit())
+        {
+            final HttpHeaderFW header = headerRO.wrap(buffer, offset, limit);
+            if (!isClientHeader(header))
+            {
+                block.putBytes(blockOffset, buffer, offset, header.sizeof());
+                blockOffset += header.sizeof();
+            }
+        }
+    }
+
+    private boolean matchesSharedHeaders(
+        ListFW<HttpHeaderFW> headers,
+        DirectBuffer block)
+    {
+        final DirectBuffer buffer = headers.buffer();
+        final int limit = headers.limit();
+
+        int blockOffset = 0;
+        for (int offset = headers.offset(); offset < limit; offset = headerRO.limit())
+        {
+            final HttpHeaderFW header = headerRO.wrap(buffer, offset, limit);
+            if (!isClientHeader(header))
+            {
+                final int length = header.sizeof();
+                if (!equals(buffer, offset, block, blockOffset, length, length))
+                {
+                    return false;
+                }
+                blockOffset += length;
+            }
+        }
+        return true;
+    }
+
+    private static void unreference(
+        InternTable table,
+        Interned interned)
+    {
+        if (--interned.references == 0 && !interned.unused)
+        {
+            interned.unused = true;
+            table.unused.offer(interned);
+        }
+    }
+
+    private static boolean isClientHeader(
+        HttpHeaderFW header)
+    {
+        return indexOf(CLIENT_NAME_BUFFERS, header.name()) != LITERAL_NAME;
+    }
+
+    private static int indexOf(
+        DirectBuffer[] names,
+        StringFW name)
+    {
+        final DirectBuffer buffer = name.buffer();
+        final int offset = name.offset() + SIZE_OF_BYTE;
+        final int length = name.sizeof() - SIZE_OF_BYTE;
+
+        for (int i = 0; i < names.length; i++)
+        {
+            final DirectBuffer candidate = names[i];
+            if (equals(buffer, offset, candidate, 0, length, candidate.capacity()))
+            {
+                return i;
+            }
+        }
+        return LITERAL_NAME;
+    }
+
+    private static long hash(
+        long hash,
+        DirectBuffer buffer,
+        int offset,
+        int length)
+    {
+        for (int i = 0; i < length; i++)
+        {
+            hash = (hash ^ (buffer.getByte(offset + i) & 0xff)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static boolean equals(
+        DirectBuffer buffer1,
+        int offset1,
+        DirectBuffer buffer2,
+        int offset2,
+        int length1,
+        int length2)
+    {
+        if (length1 != length2)
+        {
+            return false;
+        }
+        for (int i = 0; i < length1; i++)
+        {
+            if (buffer1.getByte(offset1 + i) != buffer2.getByte(offset2 + i))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static DirectBuffer[] asBuffers(
+        String[] names)
+    {
+        final DirectBuffer[] buffers = new DirectBuffer[names.length];
+        for (int i = 0; i < names.length; i++)
+        {
+            buffers[i] = new UnsafeBuffer(names[i].getBytes(UTF_8));
+        }
+        return buffers;
+    }
+
+    private static final class Interned
+    {
+        private final int id;
+        private final long hash;
+        private final UnsafeBuffer buffer;
+
+        private int references;
+        private boolean unused;
+
+        private Interned(
+            int id,
+            long hash,
+            int length)
+        {
+            this.id = id;
+            this.hash = hash;
+            this.buffer = new UnsafeBuffer(new byte[length]);
+        }
+    }
+
+    private static final class InternTable
+    {
+        private final Long2ObjectHashMap<Interned> byHash;
+        private final Interned[] byId;
+        private final int[] freeIds;
+        private final Deque<Interned> unused;
+
+        private int count;
+        private int freeIdCount;
+
+        private InternTable(
+            int capacity)
+        {
+            this.byHash = new Long2ObjectHashMap<>();
+            this.byId = new Interned[capacity];
+            this.freeIds = new int[capacity];
+            this.unused = new ArrayDeque<>();
+        }
+
+        private Interned get(
+            int id)
+        {
+            return byId[id];
+        }
+
+        private Interned find(
+            long hash)
+        {
+            return byHash.get(hash);
+        }
+
+        private Interned add(
+            long hash,
+            int length)
+        {
+            if (freeIdCount == 0 && count == byId.length && !evictUnused())
+            {
+                return null;
+            }
+
+            final int id = freeIdCount != 0 ? freeIds[--freeIdCount] : count++;
+            final Interned interned = new Interned(id, hash, length);
+            byId[id] = interned;
+            byHash.put(hash, interned);
+
+            return interned;
+        }
+
+        private boolean evictUnused()
+        {
+            Interned interned;
+            while ((interned = unused.poll()) != null)
+            {
+                interned.unused = false;
+
+                // those used again since are skipped
+                if (interned.references == 0)
+                {
+                    byHash.remove(interned.hash);
+                    byId[interned.id] = null;
+                    freeIds[freeIdCount++] = interned.id;
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
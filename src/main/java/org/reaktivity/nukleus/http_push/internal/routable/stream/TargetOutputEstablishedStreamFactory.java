@@ -16,26 +16,43 @@
 package org.reaktivity.nukleus.http_push.internal.routable.stream;
 
 import static org.reaktivity.nukleus.http_push.internal.routable.stream.Slab.NO_SLOT;
+import static org.reaktivity.nukleus.http_push.internal.router.Correlation.NO_ID;
+import static org.reaktivity.nukleus.http_push.internal.router.PollIntervals.FINGERPRINT_SEED;
+import static org.reaktivity.nukleus.http_push.internal.router.Subscriptions.NO_KEY;
 import static org.reaktivity.nukleus.http_push.internal.util.HttpHeadersUtil.IS_POLL_HEADER;
 import static org.reaktivity.nukleus.http_push.internal.util.HttpHeadersUtil.POLL_HEADER_NAME;
-
+import static org.reaktivity.nukleus.http_push.internal.util.HttpHeadersUtil.POLL_MILLIS_HEADER_NAME;
+import static org.reaktivity.nukleus.http_push.internal.util.HttpHeadersUtil.encodeHeaders;
+import static org.reaktivity.nukleus.http_push.internal.util.HttpHeadersUtil.pollIntervalMillis;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.LongConsumer;
 import java.util.function.LongFunction;
 import java.util.function.LongSupplier;
 
 import org.agrona.DirectBuffer;
 import org.agrona.MutableDirectBuffer;
+import org.agrona.collections.Int2ObjectHashMap;
+import org.agrona.collections.LongArrayList;
 import org.agrona.concurrent.MessageHandler;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.reaktivity.nukleus.http_push.internal.routable.PollLimiter;
 import org.reaktivity.nukleus.http_push.internal.routable.Source;
 import org.reaktivity.nukleus.http_push.internal.routable.Target;
 import org.reaktivity.nukleus.http_push.internal.router.Correlation;
-import org.reaktivity.nukleus.http_push.internal.types.Flyweight;
-import org.reaktivity.nukleus.http_push.internal.types.Flyweight.Builder.Visitor;
+import org.reaktivity.nukleus.http_push.internal.router.LoadFeedback;
+import org.reaktivity.nukleus.http_push.internal.router.PollIntervals;
+import org.reaktivity.nukleus.http_push.internal.router.Subscriptions;
 import org.reaktivity.nukleus.http_push.internal.types.HttpHeaderFW;
 import org.reaktivity.nukleus.http_push.internal.types.ListFW;
 import org.reaktivity.nukleus.http_push.internal.types.ListFW.Builder;
 import org.reaktivity.nukleus.http_push.internal.types.OctetsFW;
+import org.reaktivity.nukleus.http_push.internal.types.StringFW;
 import org.reaktivity.nukleus.http_push.internal.types.stream.BeginFW;
 import org.reaktivity.nukleus.http_push.internal.types.stream.DataFW;
 import org.reaktivity.nukleus.http_push.internal.types.stream.EndFW;
@@ -43,9 +60,24 @@ import org.reaktivity.nukleus.http_push.internal.types.stream.FrameFW;
 import org.reaktivity.nukleus.http_push.internal.types.stream.HttpBeginExFW;
 import org.reaktivity.nukleus.http_push.internal.types.stream.ResetFW;
 import org.reaktivity.nukleus.http_push.internal.types.stream.WindowFW;
+import org.reaktivity.nukleus.http_push.internal.util.DutyCycleClock;
 
 public final class TargetOutputEstablishedStreamFactory
 {
+    // distinct stale-while-revalidate headers kept encoded, one per poll interval in seconds
+    private static final int MAXIMUM_STALE_WHILE_REVALIDATE_HEADERS = 64;
+
+    // x-retry-after in seconds is encoded first, then x-retry-after-ms from this offset
+    private static final int RETRY_AFTER_MILLIS_OFFSET = 16;
+
+    private static final String ETAG_HEADER_NAME = "etag";
+
+    // DATA payload length is encoded in 16 bits
+    private static final int MAXIMUM_PAYLOAD_LENGTH = 0xffff;
+
+    // credit of a response with neither client nor subscribers to pace it
+    private static final long UNBOUNDED_CREDIT = Long.MAX_VALUE;
+
     private final FrameFW frameRO = new FrameFW();
 
     private final BeginFW beginRO = new BeginFW();
@@ -55,6 +87,14 @@ public final class TargetOutputEstablishedStreamFactory
     private final HttpBeginExFW.Builder httpBeginExRW = new HttpBeginExFW.Builder();
 
     private final HttpBeginExFW httpBeginExRO = new HttpBeginExFW();
+    private final OctetsFW replyExtensionRO = new OctetsFW();
+    private final OctetsFW promiseExtensionRO = new OctetsFW();
+    private final OctetsFW bufferedPayloadRO = new OctetsFW();
+    private final Consumer<OctetsFW.Builder> setReplyExtension = e -> e.set(replyExtensionRO);
+
+    private final HttpHeaderFW headerRO = new HttpHeaderFW();
+    private final MutableDirectBuffer retryAfterRW = new UnsafeBuffer(new byte[RETRY_AFTER_MILLIS_OFFSET + 10]);
+    private final Int2ObjectHashMap<DirectBuffer> staleWhileRevalidateHeaders = new Int2ObjectHashMap<>();
 
     private final WindowFW windowRO = new WindowFW();
     private final ResetFW resetRO = new ResetFW();
@@ -63,44 +103,144 @@ public final class TargetOutputEstablishedStreamFactory
     private final Function<String, Target> supplyTarget;
     private final LongSupplier supplyStreamId;
     private final LongFunction<Correlation> correlateEstablished;
-    private final Slab slab;
+    private final StoredHeaders storedHeaders;
+    private final MutableDirectBuffer decodeBuffer;
+    private final PendingPolls pendingPolls;
+    private final Subscriptions subscriptions;
+    private final PollIntervals pollIntervals;
+    private final LoadFeedback loadFeedback;
+    private final Slab responseBuffers;
+    private final DutyCycleClock clock;
+    private final MutableDirectBuffer encodeBuffer;
+    private final int maximumDataLength;
+    private final Deque<TargetOutputEstablishedStream> pool;
+    private final int maximumPooledStreams;
 
     public TargetOutputEstablishedStreamFactory(
         Source source,
         Function<String, Target> supplyTarget,
         LongSupplier supplyStreamId,
         LongFunction<Correlation> correlateEstablished,
-        Slab slab)
+        StoredHeaders storedHeaders,
+        PendingPolls pendingPolls,
+        Subscriptions subscriptions,
+        PollIntervals pollIntervals,
+        LoadFeedback loadFeedback,
+        Slab responseBuffers,
+        DutyCycleClock clock,
+        int maximumMessageLength,
+        int maximumPooledStreams)
     {
         this.source = source;
         this.supplyTarget = supplyTarget;
         this.supplyStreamId = supplyStreamId;
         this.correlateEstablished = correlateEstablished;
-        this.slab = slab;
+        this.storedHeaders = storedHeaders;
+        this.decodeBuffer = new UnsafeBuffer(new byte[storedHeaders.maximumHeadersSize()]);
+        this.pendingPolls = pendingPolls;
+        this.subscriptions = subscriptions;
+        this.pollIntervals = pollIntervals;
+        this.loadFeedback = loadFeedback;
+        this.responseBuffers = responseBuffers;
+        this.clock = clock;
+        this.encodeBuffer = new UnsafeBuffer(new byte[maximumMessageLength]);
+        this.maximumDataLength = Math.min(MAXIMUM_PAYLOAD_LENGTH, maximumMessageLength - DataFW.FIELD_OFFSET_PAYLOAD);
+        this.pool = new ArrayDeque<>();
+        this.maximumPooledStreams = maximumPooledStreams;
     }
 
     public MessageHandler newStream()
     {
-        return new TargetOutputEstablishedStream()::handleStream;
+        TargetOutputEstablishedStream stream = pool.poll();
+        if (stream == null)
+        {
+            stream = new TargetOutputEstablishedStream();
+        }
+        return stream.handleStream;
     }
 
     private final class TargetOutputEstablishedStream
     {
         private static final int NETWORK_ROUND_TRIP_TIME = 2;
 
+        private final MessageHandler handleStream = this::handleStream;
+        private final MessageHandler handleThrottle = this::handleThrottle;
+        private final MessageHandler handleSubscriberThrottle = this::handleSubscriberThrottle;
+
+        private final MessageHandler beforeBegin = this::beforeBegin;
+        private final MessageHandler afterBeginOrData = this::afterBeginOrData;
+        private final MessageHandler afterRejectOrReset = this::afterRejectOrReset;
+        private final LongConsumer fanOut = this::fanOut;
+
+        private final List<Target> subscriberTargets = new ArrayList<>();
+        private final LongArrayList subscriberTargetIds = new LongArrayList();
+        private final LongArrayList subscriberCredits = new LongArrayList();
+
         private MessageHandler streamState;
 
         private long sourceId;
 
         private Target target;
         private long targetId;
+        private PollLimiter pollLimiter;
+        private long pollId;
 
         // Needed due to effective final. TODO fix
-        private int pollInterval;
+        private int pollIntervalMillis;
+
+        // set while the body is fingerprinted to adapt the poll interval of the resource
+        private long resourceKey;
+        private long bodyFingerprint;
+
+        // response data read ahead of the client, in a circular buffer over a response buffer slot
+        private int responseSlot = NO_SLOT;
+        private int responseHead;
+        private int responseSize;
+        private int targetWindow;
+        private boolean endDeferred;
+
+        // windows granted in total, by the client including its response buffer slot and to the upstream
+        private long targetCredit;
+        private long sourceCredit;
+        private long sourceReceived;
 
         private TargetOutputEstablishedStream()
         {
-            this.streamState = this::beforeBegin;
+            this.streamState = beforeBegin;
+        }
+
+        private void recycle()
+        {
+            this.streamState = beforeBegin;
+            this.sourceId = 0L;
+            this.target = null;
+            this.targetId = 0L;
+            this.pollIntervalMillis = 0;
+            this.pollLimiter = null;
+            this.pollId = 0L;
+            this.resourceKey = NO_KEY;
+            this.bodyFingerprint = FINGERPRINT_SEED;
+            this.subscriberTargets.clear();
+            this.subscriberTargetIds.clear();
+            this.subscriberCredits.clear();
+
+            if (responseSlot != NO_SLOT)
+            {
+                responseBuffers.release(responseSlot);
+                this.responseSlot = NO_SLOT;
+            }
+            this.responseHead = 0;
+            this.responseSize = 0;
+            this.targetWindow = 0;
+            this.endDeferred = false;
+            this.targetCredit = 0L;
+            this.sourceCredit = 0L;
+            this.sourceReceived = 0L;
+
+            if (pool.size() < maximumPooledStreams)
+            {
+                pool.offer(this);
+            }
         }
 
         private void handleStream(
@@ -148,15 +288,6 @@ public final class TargetOutputEstablishedStreamFactory
             }
         }
 
-        private void afterEnd(
-            int msgTypeId,
-            DirectBuffer buffer,
-            int index,
-            int length)
-        {
-            processUnexpected(buffer, index, length);
-        }
-
         private void afterRejectOrReset(
             int msgTypeId,
             MutableDirectBuffer buffer,
@@ -176,7 +307,12 @@ public final class TargetOutputEstablishedStreamFactory
                 final long streamId = endRO.streamId();
 
                 source.removeStream(streamId);
-                this.streamState = this::afterEnd;
+                if (target != null)
+                {
+                    target.removeThrottle(targetId);
+                }
+                releasePoll();
+                recycle();
             }
         }
 
@@ -190,8 +326,9 @@ public final class TargetOutputEstablishedStreamFactory
             final long streamId = frameRO.streamId();
 
             source.doReset(streamId);
+            endSubscribers();
 
-            this.streamState = this::afterRejectOrReset;
+            this.streamState = afterRejectOrReset;
         }
 
         private void processBegin(
@@ -209,9 +346,13 @@ public final class TargetOutputEstablishedStreamFactory
 
             if (sourceRef == 0L && correlation != null)
             {
+                final long now = clock.millis();
+                loadFeedback.onPollReplied(targetCorrelationId, now);
+
                 final Target newTarget = supplyTarget.apply(correlation.source());
                 final long newTargetId = supplyStreamId.getAsLong();
                 final long sourceCorrelationId = correlation.id();
+                final boolean hasClient = sourceCorrelationId != NO_ID;
 
                 final OctetsFW extension = beginRO.extension();
                 final HttpBeginExFW httpBeginEx = extension.get(httpBeginExRO::wrap);
@@ -219,8 +360,8 @@ public final class TargetOutputEstablishedStreamFactory
                 int slabIndex = correlation.slabIndex();
                 if (slabIndex != NO_SLOT)
                 {
-                    MutableDirectBuffer savedRequest = slab.buffer(slabIndex);
-                    headersFW.wrap(savedRequest, 0, correlation.slabSlotLimit());
+                    storedHeaders.headers(slabIndex, correlation.slabSlotLimit(), decodeBuffer, headersFW);
+                    final int savedRequestLimit = headersFW.limit();
                     boolean sendUpdateOnChange = headersFW.anyMatch(IS_POLL_HEADER);
                     if(sendUpdateOnChange)
                     {
@@ -229,39 +370,84 @@ public final class TargetOutputEstablishedStreamFactory
 
                          headersFW.forEach(h ->
                          {
-                            if(POLL_HEADER_NAME.equals(h.name().asString()))
+                            if(IS_POLL_HEADER.test(h))
                             {
-                                this.pollInterval = Integer.parseInt(h.value().asString());
+                                this.pollIntervalMillis = pollIntervalMillis(h);
                             }
                         });
 
                         headersFW.wrap(extension.buffer(), extension.offset(), extension.limit());
-                        Visitor injectStaleWhileRevalidate = injectStaleWhileRevalidate(extensions,
-                                httpBeginEx.headers(), pollInterval);
-
-                        newTarget.doHttpBegin(newTargetId, 0L, sourceCorrelationId, injectStaleWhileRevalidate);
-
-                        headersFW.wrap(savedRequest, 0, correlation.slabSlotLimit());
-                        newTarget.doH2PushPromise(newTargetId, headersFW, headersToExtensions(headersFW));
+                        // encoded once, then copied to this stream and to every subscriber
+                        final int replyLength = encodeReply(encodeBuffer, 0, encodeBuffer.capacity(),
+                                extensions, pollIntervalMillis);
+                        replyExtensionRO.wrap(encodeBuffer, 0, replyLength);
+
+                        headersFW.wrap(decodeBuffer, 0, savedRequestLimit);
+                        final Consumer<Builder<HttpHeaderFW.Builder, HttpHeaderFW>> promise;
+                        if (pollIntervals.enabled() || loadFeedback.factor(now) > 1.0)
+                        {
+                            // clients are told the adapted interval in the x-retry-after of the promised request,
+                            // stretched while we or our upstream are under pressure
+                            final int retryAfter = pollIntervals.enabled() ?
+                                    adaptPollInterval(headersFW, httpBeginEx.headers()) : pollIntervalMillis;
+                            promise = headersToPromise(headersFW, loadFeedback.retryAfter(retryAfter, now));
+                        }
+                        else
+                        {
+                            promise = headersToExtensions(headersFW);
+                        }
+                        final int promiseLength = newTarget.encodeH2PushPromise(encodeBuffer, replyLength,
+                                encodeBuffer.capacity(), headersFW, promise);
+                        promiseExtensionRO.wrap(encodeBuffer, replyLength, replyLength + promiseLength);
+
+                        if (hasClient)
+                        {
+                            newTarget.doHttpBegin(newTargetId, 0L, sourceCorrelationId, setReplyExtension);
+                            newTarget.doH2PushPromise(newTargetId, promiseExtensionRO);
+                        }
+
+                        final long subscriptionKey = correlation.subscriptionKey();
+                        if (subscriptionKey != NO_KEY)
+                        {
+                            subscriptions.fanOut(subscriptionKey, fanOut);
+                        }
                     }
                     else
                     {
                         newTarget.doHttpBegin(newTargetId, 0L, sourceCorrelationId, e -> e.set(extension));
                     }
-                    slab.release(slabIndex);
+                    storedHeaders.release(slabIndex, correlation.slabSlotLimit());
+                    pendingPolls.clear(slabIndex);
                 }
                 else
                 {
                     newTarget.doHttpBegin(newTargetId, 0L, sourceCorrelationId, e -> e.set(extension));
                 }
 
-                newTarget.addThrottle(newTargetId, this::handleThrottle);
+                if (hasClient)
+                {
+                    newTarget.addThrottle(newTargetId, handleThrottle);
+
+                    this.target = newTarget;
+                    this.targetId = newTargetId;
+
+                    if (responseBuffers != null)
+                    {
+                        this.responseSlot = responseBuffers.acquire(newSourceId);
+                        if (responseSlot != NO_SLOT)
+                        {
+                            // read ahead of the client by up to a slot, so a slow client does not hold the upstream
+                            this.targetCredit = responseBuffers.slotCapacity();
+                        }
+                    }
+                }
 
                 this.sourceId = newSourceId;
-                this.target = newTarget;
-                this.targetId = newTargetId;
+                this.pollLimiter = correlation.pollLimiter();
+                this.pollId = targetCorrelationId;
+                this.streamState = afterBeginOrData;
 
-                this.streamState = this::afterBeginOrData;
+                updateSourceCredit();
             }
             else
             {
@@ -269,13 +455,117 @@ public final class TargetOutputEstablishedStreamFactory
             }
         }
 
+        private void fanOut(
+            long subscriberId)
+        {
+            final Correlation subscriber = correlateEstablished.apply(subscriberId);
+
+            if (subscriber != null)
+            {
+                final Target subscriberTarget = supplyTarget.apply(subscriber.source());
+                final long subscriberTargetId = supplyStreamId.getAsLong();
+
+                subscriberTarget.doHttpBegin(subscriberTargetId, 0L, subscriber.id(), setReplyExtension);
+                subscriberTarget.doH2PushPromise(subscriberTargetId, promiseExtensionRO);
+
+                subscriberTarget.addThrottle(subscriberTargetId, handleSubscriberThrottle);
+
+                subscriberTargets.add(subscriberTarget);
+                subscriberTargetIds.addLong(subscriberTargetId);
+                subscriberCredits.addLong(0L);
+            }
+        }
+
+        private void endSubscribers()
+        {
+            for (int i = 0; i < subscriberTargets.size(); i++)
+            {
+                final Target subscriberTarget = subscriberTargets.get(i);
+                final long subscriberTargetId = subscriberTargetIds.getLong(i);
+                subscriberTarget.doHttpEnd(subscriberTargetId);
+                subscriberTarget.removeThrottle(subscriberTargetId);
+            }
+
+            subscriberTargets.clear();
+            subscriberTargetIds.clear();
+            subscriberCredits.clear();
+        }
+
+        private void removeSubscriber(
+            int subscriber)
+        {
+            subscriberTargets.remove(subscriber).removeThrottle(subscriberTargetIds.getLong(subscriber));
+            subscriberTargetIds.remove(subscriber);
+            subscriberCredits.remove(subscriber);
+        }
+
+        private void updateSourceCredit()
+        {
+            // the upstream may send no more than the slowest of the client and the subscribers can take
+            long credit = target != null ? targetCredit : UNBOUNDED_CREDIT;
+            for (int i = 0; i < subscriberCredits.size(); i++)
+            {
+                credit = Math.min(credit, subscriberCredits.getLong(i));
+            }
+
+            if (credit == UNBOUNDED_CREDIT)
+            {
+                if (sourceCredit != UNBOUNDED_CREDIT)
+                {
+                    // nobody to pace, so the response is read at the rate it can be written
+                    source.doWindow(sourceId, encodeBuffer.capacity());
+                    this.sourceCredit = UNBOUNDED_CREDIT;
+                }
+            }
+            else if (credit > sourceCredit)
+            {
+                source.doWindow(sourceId, (int) Math.min(credit - sourceCredit, Integer.MAX_VALUE));
+                this.sourceCredit = credit;
+            }
+        }
+
         private void processData(
             DirectBuffer buffer,
             int index,
             int length)
         {
             dataRO.wrap(buffer, index, index + length);
-            target.doHttpData(targetId, dataRO.payload());
+            final OctetsFW payload = dataRO.payload();
+
+            sourceReceived += payload.sizeof();
+            if (sourceReceived > sourceCredit)
+            {
+                processCreditExceeded();
+                return;
+            }
+
+            if (resourceKey != NO_KEY)
+            {
+                bodyFingerprint = PollIntervals.fingerprint(bodyFingerprint, payload.buffer(), payload.offset(),
+                        payload.sizeof());
+            }
+
+            if (target == null)
+            {
+                if (sourceCredit == UNBOUNDED_CREDIT)
+                {
+                    source.doWindow(sourceId, payload.sizeof());
+                }
+            }
+            else if (responseSlot == NO_SLOT)
+            {
+                target.doHttpData(targetId, payload);
+            }
+            else if (!bufferData(payload))
+            {
+                processCreditExceeded();
+                return;
+            }
+
+            for (int i = 0; i < subscriberTargets.size(); i++)
+            {
+                subscriberTargets.get(i).doHttpData(subscriberTargetIds.getLong(i), payload);
+            }
         }
 
         private void processEnd(
@@ -285,9 +575,106 @@ public final class TargetOutputEstablishedStreamFactory
         {
             endRO.wrap(buffer, index, index + length);
 
-            target.doHttpEnd(targetId);
-            target.removeThrottle(targetId);
             source.removeStream(sourceId);
+            endSubscribers();
+
+            if (resourceKey != NO_KEY)
+            {
+                pollIntervals.observe(resourceKey, bodyFingerprint, pollIntervalMillis);
+            }
+
+            releasePoll();
+
+            if (responseSize != 0)
+            {
+                // the upstream is released now, the client is ended once it has read what is buffered
+                this.endDeferred = true;
+            }
+            else
+            {
+                endTarget();
+                recycle();
+            }
+        }
+
+        private void endTarget()
+        {
+            if (target != null)
+            {
+                target.doHttpEnd(targetId);
+                target.removeThrottle(targetId);
+            }
+        }
+
+        private boolean bufferData(
+            OctetsFW payload)
+        {
+            final int size = payload.sizeof();
+            int written = 0;
+            if (responseSize == 0 && targetWindow != 0)
+            {
+                // sent as far as the client's window allows, the rest is kept until it grants more
+                written = Math.min(size, targetWindow);
+                final DirectBuffer data = payload.buffer();
+                final int offset = payload.offset();
+                target.doHttpData(targetId, bufferedPayloadRO.wrap(data, offset, offset + written));
+                targetWindow -= written;
+            }
+
+            final int remaining = size - written;
+            if (responseSize + remaining > responseBuffers.slotCapacity())
+            {
+                // only possible beyond the window granted to the upstream
+                return false;
+            }
+            else if (remaining != 0)
+            {
+                final MutableDirectBuffer slot = responseBuffers.buffer(responseSlot);
+                final int mask = slot.capacity() - 1;
+                final int tail = (responseHead + responseSize) & mask;
+                final int offset = payload.offset() + written;
+                final int firstLength = Math.min(remaining, slot.capacity() - tail);
+                slot.putBytes(tail, payload.buffer(), offset, firstLength);
+                slot.putBytes(0, payload.buffer(), offset + firstLength, remaining - firstLength);
+                responseSize += remaining;
+            }
+            return true;
+        }
+
+        private void processCreditExceeded()
+        {
+            // the upstream sent more than it was granted, so neither the client nor the subscribers get the rest
+            source.doReset(sourceId);
+            endSubscribers();
+
+            this.responseSize = 0;
+            this.endDeferred = false;
+            endTarget();
+
+            this.streamState = afterRejectOrReset;
+        }
+
+        private void drainData(
+            int window)
+        {
+            final MutableDirectBuffer slot = responseBuffers.buffer(responseSlot);
+            final int mask = slot.capacity() - 1;
+
+            int remaining = Math.min(window, responseSize);
+            while (remaining > 0)
+            {
+                final int length = Math.min(Math.min(remaining, slot.capacity() - responseHead), maximumDataLength);
+                target.doHttpData(targetId, bufferedPayloadRO.wrap(slot, responseHead, responseHead + length));
+                responseHead = (responseHead + length) & mask;
+                responseSize -= length;
+                targetWindow = Math.max(targetWindow - length, 0);
+                remaining -= length;
+            }
+
+            if (responseSize == 0)
+            {
+                responseHead = 0;
+            }
         }
 
         private void handleThrottle(
@@ -316,9 +703,27 @@ public final class TargetOutputEstablishedStreamFactory
             int length)
         {
             windowRO.wrap(buffer, index, index + length);
-            if(windowRO.update() > 0)
+            final int update = windowRO.update();
+            if (update > 0)
             {
-                source.doWindow(sourceId, windowRO.update());
+                targetCredit += update;
+
+                if (responseSlot != NO_SLOT)
+                {
+                    // buffered data sent to the client frees as much room as its window allowed
+                    targetWindow += update;
+                    drainData(targetWindow);
+                }
+
+                if (!endDeferred)
+                {
+                    updateSourceCredit();
+                }
+                else if (responseSize == 0)
+                {
+                    endTarget();
+                    recycle();
+                }
             }
         }
 
@@ -329,7 +734,57 @@ public final class TargetOutputEstablishedStreamFactory
         {
             resetRO.wrap(buffer, index, index + length);
 
-            source.doReset(sourceId);
+            if (!endDeferred)
+            {
+                // the upstream is reset, so subscribers get no more of the response than they have
+                source.doReset(sourceId);
+                source.removeStream(sourceId);
+                endSubscribers();
+            }
+            target.removeThrottle(targetId);
+            releasePoll();
+            recycle();
+        }
+
+        private void handleSubscriberThrottle(
+            int msgTypeId,
+            DirectBuffer buffer,
+            int index,
+            int length)
+        {
+            frameRO.wrap(buffer, index, index + length);
+            final int subscriber = subscriberTargetIds.indexOf(frameRO.streamId());
+            if (subscriber == -1)
+            {
+                return;
+            }
+
+            switch (msgTypeId)
+            {
+            case WindowFW.TYPE_ID:
+                windowRO.wrap(buffer, index, index + length);
+                subscriberCredits.setLong(subscriber, subscriberCredits.getLong(subscriber) + windowRO.update());
+                updateSourceCredit();
+                break;
+            case ResetFW.TYPE_ID:
+                // the response goes on for the client and the other subscribers, no longer held by this one
+                removeSubscriber(subscriber);
+                updateSourceCredit();
+                break;
+            default:
+                // ignore
+                break;
+            }
+        }
+
+        private void releasePoll()
+        {
+            // the poll this is the reply to no longer counts towards its target's outstanding polls
+            if (pollLimiter != null)
+            {
+                pollLimiter.release(pollId);
+                pollLimiter = null;
+            }
         }
 
         private Consumer<Builder<org.reaktivity.nukleus.http_push.internal.types.HttpHeaderFW.Builder, HttpHeaderFW>>
@@ -342,27 +797,168 @@ public final class TargetOutputEstablishedStreamFactory
             }));
         }
 
-        private Flyweight.Builder.Visitor injectStaleWhileRevalidate(
-                Consumer<Builder<HttpHeaderFW.Builder, HttpHeaderFW>> mutator,
-                ListFW<HttpHeaderFW> headers,
-                int pollInterval)
+        private int adaptPollInterval(
+            ListFW<HttpHeaderFW> requestHeaders,
+            ListFW<HttpHeaderFW> responseHeaders)
+        {
+            final long key = subscriptions.resourceKey(requestHeaders);
+            final StringFW etag = findValue(responseHeaders, ETAG_HEADER_NAME);
+            if (etag != null)
+            {
+                final long fingerprint = PollIntervals.fingerprint(FINGERPRINT_SEED, etag.buffer(), etag.offset(),
+                        etag.sizeof());
+                pollIntervals.observe(key, fingerprint, pollIntervalMillis);
+            }
+            else
+            {
+                // without an ETag, the response is compared by its body once it has ended
+                this.resourceKey = key;
+            }
+            return pollIntervals.interval(key, pollIntervalMillis);
+        }
+
+        private Consumer<Builder<HttpHeaderFW.Builder, HttpHeaderFW>> headersToPromise(
+            ListFW<HttpHeaderFW> headersFW,
+            int retryAfterMillis)
+        {
+            final int secondsLength = putSeconds(retryAfterRW, 0, retryAfterMillis);
+            final int millisLength = putDecimal(retryAfterRW, RETRY_AFTER_MILLIS_OFFSET, retryAfterMillis);
+            return x -> headersFW.forEach(h -> x.item(y ->
+            {
+                y.representation((byte) 0).name(h.name());
+                final String name = h.name().asString();
+                if (POLL_HEADER_NAME.equals(name))
+                {
+                    y.value(retryAfterRW, 0, secondsLength);
+                }
+                else if (POLL_MILLIS_HEADER_NAME.equals(name))
+                {
+                    y.value(retryAfterRW, RETRY_AFTER_MILLIS_OFFSET, millisLength);
+                }
+                else
+                {
+                    y.value(h.value());
+                }
+            }));
+        }
+
+        private int encodeReply(
+            MutableDirectBuffer buffer,
+            int offset,
+            int limit,
+            Consumer<Builder<HttpHeaderFW.Builder, HttpHeaderFW>> mutator,
+            int pollIntervalMillis)
+        {
+            final int headersLimit = httpBeginExRW.wrap(buffer, offset, limit)
+                                                  .headers(mutator)
+                                                  .build()
+                                                  .limit();
+
+            // stale-while-revalidate is in whole seconds, so sub-second intervals round up
+            final int staleSeconds = (int) ((pollIntervalMillis + 999L) / 1000L) + NETWORK_ROUND_TRIP_TIME;
+            final DirectBuffer staleWhileRevalidate = staleWhileRevalidateHeader(staleSeconds);
+            if (headersLimit + staleWhileRevalidate.capacity() > limit)
+            {
+                throw new IndexOutOfBoundsException();
+            }
+            buffer.putBytes(headersLimit, staleWhileRevalidate, 0, staleWhileRevalidate.capacity());
+            return headersLimit + staleWhileRevalidate.capacity() - offset;
+        }
+    }
+
+    private DirectBuffer staleWhileRevalidateHeader(
+        int staleSeconds)
+    {
+        DirectBuffer header = staleWhileRevalidateHeaders.get(staleSeconds);
+        if (header == null)
+        {
+            if (staleWhileRevalidateHeaders.size() == MAXIMUM_STALE_WHILE_REVALIDATE_HEADERS)
+            {
+                staleWhileRevalidateHeaders.clear();
+            }
+            header = encodeHeaders("cache-control", "stale-while-revalidate=" + staleSeconds);
+            staleWhileRevalidateHeaders.put(staleSeconds, header);
+        }
+        return header;
+    }
+
+    private StringFW findValue(
+        ListFW<HttpHeaderFW> headers,
+        String name)
+    {
+        final DirectBuffer buffer = headers.buffer();
+        final int limit = headers.limit();
+        final int nameLength = name.length();
+
+        for (int offset = headers.offset(); offset < limit; offset = headerRO.limit())
+        {
+            final StringFW headerName = headerRO.wrap(buffer, offset, limit).name();
+            if (headerName.sizeof() - 1 == nameLength && matches(buffer, headerName.offset() + 1, name))
+            {
+                return headerRO.value();
+            }
+        }
+
+        return null;
+    }
+
+    private static boolean matches(
+        DirectBuffer buffer,
+        int offset,
+        String name)
+    {
+        for (int i = 0; i < name.length(); i++)
+        {
+            if (buffer.getByte(offset + i) != name.charAt(i))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int putDecimal(
+        MutableDirectBuffer buffer,
+        int offset,
+        int value)
+    {
+        int length = 1;
+        for (int remaining = value; remaining >= 10; remaining /= 10)
+        {
+            length++;
+        }
+
+        int remaining = value;
+        for (int i = length - 1; i >= 0; i--)
+        {
+            buffer.putByte(offset + i, (byte) ('0' + remaining % 10));
+            remaining /= 10;
+        }
+        return length;
+    }
+
+    // whole seconds rounded up, so that clients polling in whole seconds are promised whole seconds,
+    // except below a second where only a fraction keeps the interval
+    private static int putSeconds(
+        MutableDirectBuffer buffer,
+        int offset,
+        int millis)
+    {
+        if (millis == 0 || millis >= 1000)
         {
-            pollInterval += NETWORK_ROUND_TRIP_TIME;
-            mutator = mutator.andThen(
-                    x ->  x.item(h -> h.representation((byte) 0).name("cache-control").value("stale-while-revalidate=7"))
-                );
-            return visitHttpBeginEx(mutator);
+            return putDecimal(buffer, offset, (int) ((millis + 999L) / 1000L));
         }
 
-        private Flyweight.Builder.Visitor visitHttpBeginEx(
-                Consumer<Builder<HttpHeaderFW.Builder, HttpHeaderFW>> headers)
+        buffer.putByte(offset, (byte) '0');
+        buffer.putByte(offset + 1, (byte) '.');
 
+        int length = 2;
+        int remaining = millis;
+        for (int scale = 100; remaining != 0; scale /= 10)
         {
-            return (buffer, offset, limit) ->
-            httpBeginExRW.wrap(buffer, offset, limit)
-                         .headers(headers)
-                         .build()
-                         .sizeof();
+            buffer.putByte(offset + length++, (byte) ('0' + remaining / scale));
+            remaining %= scale;
         }
+        return length;
     }
 }
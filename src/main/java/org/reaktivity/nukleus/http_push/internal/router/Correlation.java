@@ -19,13 +19,20 @@ import static java.util.Objects.requireNonNull;
 
 import java.util.Objects;
 
+import org.reaktivity.nukleus.http_push.internal.routable.PollLimiter;
+
 public class Correlation
 {
+    // polls recovered on restart have no client of their own, their response only goes to subscribers
+    public static final long NO_ID = -1L;
+
     private final long id;
     private final String source;
     private final RouteKind established;
     private final int slotIndex;
     private final int slabSlotLimit;
+    private final long subscriptionKey;
+    private final PollLimiter pollLimiter;
 
     public Correlation(
         long id,
@@ -33,12 +40,37 @@ public class Correlation
         RouteKind established,
         int slotIndex,
         int slabSlotLimit)
+    {
+        this(id, source, established, slotIndex, slabSlotLimit, Subscriptions.NO_KEY);
+    }
+
+    public Correlation(
+        long id,
+        String source,
+        RouteKind established,
+        int slotIndex,
+        int slabSlotLimit,
+        long subscriptionKey)
+    {
+        this(id, source, established, slotIndex, slabSlotLimit, subscriptionKey, null);
+    }
+
+    public Correlation(
+        long id,
+        String source,
+        RouteKind established,
+        int slotIndex,
+        int slabSlotLimit,
+        long subscriptionKey,
+        PollLimiter pollLimiter)
     {
         this.id = id;
         this.source = requireNonNull(source, "source");
         this.established = requireNonNull(established, "established");
         this.slotIndex = slotIndex;
         this.slabSlotLimit = slabSlotLimit;
+        this.subscriptionKey = subscriptionKey;
+        this.pollLimiter = pollLimiter;
     }
 
     public long id()
@@ -66,6 +98,16 @@ public class Correlation
         return this.slabSlotLimit;
     }
 
+    public long subscriptionKey()
+    {
+        return this.subscriptionKey;
+    }
+
+    public PollLimiter pollLimiter()
+    {
+        return this.pollLimiter;
+    }
+
     @Override
     public int hashCode()
     {
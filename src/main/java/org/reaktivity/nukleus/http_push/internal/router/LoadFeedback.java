@@ -0,0 +1,177 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.http_push.internal.router;
+
+import org.agrona.collections.Long2LongHashMap;
+import org.reaktivity.nukleus.http_push.internal.routable.stream.Slab;
+
+/**
+ * Turns signs of pressure on the nukleus and its upstream into a factor by which the x-retry-after promised to
+ * clients is stretched, so that clients slow down before they overload us. The pressure is the highest of slab
+ * occupancy beyond three quarters, scheduled polls relative to their threshold, recent failures to write to a full
+ * stream buffer, and upstream poll latency beyond its threshold. It is sampled at most every 100 milliseconds.
+ * <b>Each instance of this class is assumed to be used by one and only one thread.</b>
+ */
+public final class LoadFeedback
+{
+    private static final long SAMPLE_INTERVAL_MILLIS = 100L;
+    private static final double SLAB_OCCUPANCY_THRESHOLD = 0.75;
+    private static final double WRITE_FAILURES_THRESHOLD = 8.0;
+    private static final double WRITE_FAILURES_DECAY = 0.8;
+    private static final double LATENCY_WEIGHT = 0.125;
+    private static final double MINIMUM_PRESSURE = 0.0625;
+    private static final long NO_TIME = Long.MIN_VALUE;
+    private static final int IMMEDIATE_RETRY_AFTER_MILLIS = 1000;
+
+    private final Slab slab;
+    private final double maximumFactor;
+    private final long scheduledPollsThreshold;
+    private final long latencyThreshold;
+    private final Long2LongHashMap pollSentAt;
+
+    private long scheduledPolls;
+    private long writeFailures;
+    private double recentWriteFailures;
+    private double latency;
+    private long sampledAt;
+    private double factor;
+
+    /**
+     * @param slab - Slab of stored requests whose occupancy is a sign of pressure
+     * @param maximumFactor - Factor applied at full pressure, 1 disables feedback
+     * @param scheduledPollsThreshold - Number of scheduled polls at which pressure is full
+     * @param latencyThreshold - Upstream poll latency in milliseconds beyond which pressure builds, full at twice that
+     */
+    public LoadFeedback(
+        Slab slab,
+        double maximumFactor,
+        long scheduledPollsThreshold,
+        long latencyThreshold)
+    {
+        if (maximumFactor < 1.0)
+        {
+            throw new IllegalArgumentException("maximumFactor is less than 1");
+        }
+        this.slab = slab;
+        this.maximumFactor = maximumFactor;
+        this.scheduledPollsThreshold = scheduledPollsThreshold;
+        this.latencyThreshold = latencyThreshold;
+        this.pollSentAt = new Long2LongHashMap(NO_TIME);
+        this.sampledAt = NO_TIME;
+        this.factor = 1.0;
+    }
+
+    public void onPollScheduled()
+    {
+        scheduledPolls++;
+    }
+
+    public void onPollFired()
+    {
+        scheduledPolls--;
+    }
+
+    public void onPollCancelled()
+    {
+        scheduledPolls--;
+    }
+
+    public void onWriteFailed()
+    {
+        writeFailures++;
+    }
+
+    public void onPollSent(
+        long correlationId,
+        long now)
+    {
+        pollSentAt.put(correlationId, now);
+    }
+
+    /**
+     * Forgets the time a poll was sent once it is released, so polls that are reset or time out without a reply
+     * are not kept
+     * @param correlationId - Correlation id of the poll
+     */
+    public void onPollReleased(
+        long correlationId)
+    {
+        pollSentAt.remove(correlationId);
+    }
+
+    public void onPollReplied(
+        long correlationId,
+        long now)
+    {
+        final long sentAt = pollSentAt.remove(correlationId);
+        if (sentAt != NO_TIME)
+        {
+            latency += (now - sentAt - latency) * LATENCY_WEIGHT;
+        }
+    }
+
+    /**
+     * Stretches the x-retry-after to promise to clients according to the current pressure
+     * @param retryAfterMillis - Poll interval in milliseconds that would otherwise be promised
+     * @param now - Current time in milliseconds
+     * @return Poll interval in milliseconds to promise
+     */
+    public int retryAfter(
+        int retryAfterMillis,
+        long now)
+    {
+        final double factor = factor(now);
+
+        // polls asking to be repeated immediately are stretched as if they asked for a second
+        final int stretched = retryAfterMillis == 0 ? IMMEDIATE_RETRY_AFTER_MILLIS : retryAfterMillis;
+        return factor > 1.0 ? (int) Math.min(Math.ceil(stretched * factor), Integer.MAX_VALUE) : retryAfterMillis;
+    }
+
+    public double factor(
+        long now)
+    {
+        if (maximumFactor > 1.0 && (sampledAt == NO_TIME || now - sampledAt >= SAMPLE_INTERVAL_MILLIS))
+        {
+            sampledAt = now;
+
+            // write failures fade over about a second after they stop
+            recentWriteFailures = recentWriteFailures * WRITE_FAILURES_DECAY + writeFailures;
+            writeFailures = 0;
+
+            final double nukleusPressure = Math.max(slabPressure(), ratio(scheduledPolls, scheduledPollsThreshold));
+            final double writePressure = ratio(recentWriteFailures, WRITE_FAILURES_THRESHOLD);
+            final double upstreamPressure = ratio(latency - latencyThreshold, latencyThreshold);
+            final double pressure = Math.max(nukleusPressure, Math.max(writePressure, upstreamPressure));
+
+            // residual pressure, such as fading write failures, does not stretch intervals
+            factor = pressure >= MINIMUM_PRESSURE ? 1.0 + (maximumFactor - 1.0) * pressure : 1.0;
+        }
+        return factor;
+    }
+
+    private double slabPressure()
+    {
+        final double occupancy = 1.0 - (double) slab.availableSlots() / slab.totalSlots();
+        return ratio(occupancy - SLAB_OCCUPANCY_THRESHOLD, 1.0 - SLAB_OCCUPANCY_THRESHOLD);
+    }
+
+    private static double ratio(
+        double value,
+        double threshold)
+    {
+        return threshold > 0 ? Math.max(0.0, Math.min(value / threshold, 1.0)) : 0.0;
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.http_push.internal.router;
+
+import static org.agrona.BitUtil.isPowerOfTwo;
+
+import org.agrona.DirectBuffer;
+import org.agrona.collections.Hashing;
+
+/**
+ * Adapts the poll interval of each resource to how often it changes. Consecutive poll responses for a resource
+ * are compared by fingerprint, typically a hash of their ETag or body. The interval is stretched while responses
+ * stay the same and shrunk when they differ, always within the configured bounds. Resources are tracked in a
+ * fixed size table where a resource may displace another one that hashes to the same entry, which then starts
+ * again from its requested interval.
+ * <b>Each instance of this class is assumed to be used by one and only one thread.</b>
+ */
+public final class PollIntervals
+{
+    public static final long FINGERPRINT_SEED = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final int mask;
+    private final int minimumInterval;
+    private final int maximumInterval;
+    private final long[] keys;
+    private final long[] fingerprints;
+    private final int[] intervals;
+
+    /**
+     * @param capacity - Number of resources tracked, a power of 2, or 0 to leave poll intervals as requested
+     * @param minimumInterval - Shortest adapted interval, in milliseconds
+     * @param maximumInterval - Longest adapted interval, in milliseconds
+     */
+    public PollIntervals(
+        int capacity,
+        int minimumInterval,
+        int maximumInterval)
+    {
+        if (capacity != 0 && !isPowerOfTwo(capacity))
+        {
+            throw new IllegalArgumentException("capacity is not a power of 2");
+        }
+        if (minimumInterval < 0 || maximumInterval < minimumInterval)
+        {
+            throw new IllegalArgumentException("interval bounds are not 0 <= minimum <= maximum");
+        }
+        this.mask = capacity - 1;
+        this.minimumInterval = minimumInterval;
+        this.maximumInterval = maximumInterval;
+        this.keys = new long[capacity];
+        this.fingerprints = new long[capacity];
+        this.intervals = new int[capacity];
+    }
+
+    public boolean enabled()
+    {
+        return keys.length != 0;
+    }
+
+    /**
+     * Gets the interval to poll a resource at
+     * @param key - Resource key, see {@link Subscriptions#resourceKey}
+     * @param requestedInterval - Interval requested by the client, in milliseconds
+     * @return Adapted interval if the resource has been observed, otherwise the requested interval within bounds
+     */
+    public int interval(
+        long key,
+        int requestedInterval)
+    {
+        if (!enabled() || key == Subscriptions.NO_KEY)
+        {
+            return requestedInterval;
+        }
+
+        final int index = Hashing.hash(key, mask);
+        return keys[index] == key ? intervals[index] : bound(requestedInterval);
+    }
+
+    /**
+     * Records a poll response for a resource, adapting its interval if it follows an earlier response
+     * @param key - Resource key, see {@link Subscriptions#resourceKey}
+     * @param fingerprint - Fingerprint of the response
+     * @param requestedInterval - Interval requested by the client, in milliseconds
+     */
+    public void observe(
+        long key,
+        long fingerprint,
+        int requestedInterval)
+    {
+        if (!enabled() || key == Subscriptions.NO_KEY)
+        {
+            return;
+        }
+
+        final int index = Hashing.hash(key, mask);
+        if (keys[index] != key)
+        {
+            keys[index] = key;
+            intervals[index] = bound(requestedInterval);
+        }
+        else if (fingerprints[index] == fingerprint)
+        {
+            final int interval = intervals[index];
+            intervals[index] = bound(interval + Math.max(interval >> 1, 1));
+        }
+        else
+        {
+            intervals[index] = bound(intervals[index] >> 1);
+        }
+        fingerprints[index] = fingerprint;
+    }
+
+    public static long fingerprint(
+        long fingerprint,
+        DirectBuffer buffer,
+        int offset,
+        int length)
+    {
+        for (int i = 0; i < length; i++)
+        {
+            fingerprint = (fingerprint ^ (buffer.getByte(offset + i) & 0xff)) * FNV_PRIME;
+        }
+        return fingerprint;
+    }
+
+    private int bound(
+        int interval)
+    {
+        return Math.max(minimumInterval, Math.min(interval, maximumInterval));
+    }
+}
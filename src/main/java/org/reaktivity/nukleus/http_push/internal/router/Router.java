@@ -16,19 +16,27 @@
 
 package org.reaktivity.nukleus.http_push.internal.router;
 
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.agrona.CloseHelper;
 import org.agrona.collections.Long2ObjectHashMap;
+import org.agrona.concurrent.UnsafeBuffer;
 import org.agrona.concurrent.status.AtomicCounter;
 import org.reaktivity.nukleus.Nukleus;
 import org.reaktivity.nukleus.http_push.internal.Context;
+import org.reaktivity.nukleus.http_push.internal.Counters;
 import org.reaktivity.nukleus.http_push.internal.conductor.Conductor;
+import org.reaktivity.nukleus.http_push.internal.layouts.SpillLayout;
+import org.reaktivity.nukleus.http_push.internal.layouts.StateLayout;
 import org.reaktivity.nukleus.http_push.internal.routable.Routable;
+import org.reaktivity.nukleus.http_push.internal.routable.stream.PendingPolls;
 import org.reaktivity.nukleus.http_push.internal.routable.stream.Slab;
+import org.reaktivity.nukleus.http_push.internal.routable.stream.StoredHeaders;
 import org.reaktivity.nukleus.http_push.internal.types.control.Role;
 
 public class Router extends Nukleus.Composite
@@ -41,7 +49,17 @@ public class Router extends Nukleus.Composite
     private final AtomicCounter routesSourced;
 
     private Conductor conductor;
+    private StateLayout stateRO;
+    private SpillLayout spillRO;
     private Slab slab;
+    private Slab responseBuffers;
+    private Slab pollFrames;
+    private StoredHeaders storedHeaders;
+    private PendingPolls pendingPolls;
+    private Subscriptions subscriptions;
+    private SlabAdmission slabAdmission;
+    private PollIntervals pollIntervals;
+    private LoadFeedback loadFeedback;
 
     public Router(
             Context context)
@@ -50,7 +68,55 @@ public class Router extends Nukleus.Composite
             this.routables = new HashMap<>();
             this.correlations = new Long2ObjectHashMap<>();
             this.routesSourced = context.counters().routesSourced();
-            this.slab = new Slab(context.memoryForRepeatRequests, context.maximumRequestSize);
+            if (context.warmRestart)
+            {
+                final int slotCount = context.memoryForRepeatRequests / context.storedRequestSlotCapacity;
+                this.stateRO = new StateLayout.Builder()
+                        .statePath(context.statePath())
+                        .slabCapacity(context.memoryForRepeatRequests)
+                        .slotCapacity(context.storedRequestSlotCapacity)
+                        .pollsCapacity(slotCount * PendingPolls.RECORD_LENGTH)
+                        .build();
+                this.slab = new Slab(stateRO.slabBuffer(), context.storedRequestSlotCapacity);
+                this.pendingPolls = new PendingPolls(stateRO.pollsBuffer());
+                if (stateRO.recovered())
+                {
+                    pendingPolls.forEach((slot, source, sourceRef, target, targetRef, requestSize, pollAt) -> slab.reserve(slot));
+                }
+            }
+            else if (context.spillCapacity > 0)
+            {
+                // recovered polls refer to slots by location, so spilling is only used without warm restart
+                this.spillRO = new SpillLayout.Builder()
+                        .spillPath(context.spillPath())
+                        .spillCapacity(context.spillCapacity)
+                        .build();
+                this.slab = new Slab(new UnsafeBuffer(ByteBuffer.allocateDirect(context.memoryForRepeatRequests)),
+                        spillRO.spillBuffer(), context.storedRequestSlotCapacity);
+                this.pendingPolls = new PendingPolls(new UnsafeBuffer(new byte[0]));
+            }
+            else
+            {
+                this.slab = new Slab(context.memoryForRepeatRequests, context.storedRequestSlotCapacity);
+                this.pendingPolls = new PendingPolls(new UnsafeBuffer(new byte[0]));
+            }
+            if (context.responseBufferCapacity > 0)
+            {
+                this.responseBuffers = new Slab(context.responseBufferCapacity, context.responseBufferSlotCapacity);
+            }
+            if (context.pollFrameCapacity > 0)
+            {
+                this.pollFrames = new Slab(context.pollFrameCapacity, context.pollFrameSlotCapacity);
+            }
+            // values are only interned while stored requests do not outlive the nukleus
+            this.storedHeaders = new StoredHeaders(slab, context.maxMessageLength(), !context.warmRestart);
+            this.subscriptions = new Subscriptions(storedHeaders);
+            this.slabAdmission = new SlabAdmission(slab, context.counters().slabHits(), context.counters().slabAdmits(),
+                    context.counters().slabEvicts());
+            this.pollIntervals = new PollIntervals(context.adaptivePollResources, context.minimumPollInterval * 1000,
+                    context.maximumPollInterval * 1000);
+            this.loadFeedback = new LoadFeedback(slab, context.maximumRetryAfterFactor, context.scheduledPollsThreshold,
+                    context.upstreamLatencyThreshold);
         }
 
     public void setConductor(Conductor conductor)
@@ -64,6 +130,29 @@ public class Router extends Nukleus.Composite
         return "router";
     }
 
+    @Override
+    public int process()
+    {
+        final int workCount = super.process();
+
+        final Counters counters = context.counters();
+        final int slotsInUse = slab.totalSlots() - slab.availableSlots();
+        counters.slabSlotsInUse().setOrdered(slotsInUse);
+        counters.slabHighWaterMark().setOrdered(slab.highWaterMark());
+        counters.slabAcquireFailures().setOrdered(slab.acquireFailures());
+        counters.slabAverageBytesPerSlot().setOrdered(slotsInUse != 0 ? slab.storedBytes() / slotsInUse : 0L);
+
+        return workCount;
+    }
+
+    @Override
+    public void close() throws Exception
+    {
+        super.close();
+        CloseHelper.quietClose(stateRO);
+        CloseHelper.quietClose(spillRO);
+    }
+
     public void doRoute(
         long correlationId,
         Role role,
@@ -141,7 +230,16 @@ public class Router extends Nukleus.Composite
     private Routable newRoutable(
         String sourceName)
     {
-        return include(
-            new Routable(context, conductor, sourceName, correlations::put, correlations::get, correlations::remove, slab));
+        final Routable routable = include(
+            new Routable(context, conductor, sourceName, correlations::put, correlations::get, correlations::remove,
+                    storedHeaders, pendingPolls, subscriptions, slabAdmission, pollIntervals, loadFeedback,
+                    responseBuffers, pollFrames));
+
+        if (stateRO != null && stateRO.recovered())
+        {
+            routable.recoverPolls();
+        }
+
+        return routable;
     }
 }
@@ -0,0 +1,197 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.http_push.internal.router;
+
+import static org.reaktivity.nukleus.http_push.internal.router.Subscriptions.NO_KEY;
+
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+
+import org.agrona.concurrent.status.AtomicCounter;
+import org.reaktivity.nukleus.http_push.internal.routable.stream.Slab;
+import org.reaktivity.nukleus.http_push.internal.util.FrequencySketch;
+
+/**
+ * Decides which polls keep their request in the slab once it is full.
+ * <p>
+ * How often each resource is polled is counted in a frequency sketch. When a poll finds no free slot, a few of the
+ * slots held by scheduled polls are sampled, and the one for the least frequently polled resource is evicted if its
+ * resource is polled less often than the new one. An evicted poll is sent upstream straight away and its response is
+ * proxied to its client, as for any request that finds the slab full.
+ * <b>Each instance of this class is assumed to be used by one and only one thread.</b>
+ */
+public final class SlabAdmission
+{
+    private static final int SAMPLED_VICTIMS = 8;
+    private static final int NO_POSITION = -1;
+
+    private final Slab slab;
+    private final FrequencySketch sketch;
+    private final AtomicCounter hits;
+    private final AtomicCounter admits;
+    private final AtomicCounter evicts;
+
+    // slots held by scheduled polls, densely packed so they can be sampled
+    private final int[] occupants;
+    private final int[] positions;
+    private final long[] keys;
+    private final BooleanSupplier[] evictors;
+
+    private int occupantCount;
+    private int sampleCursor;
+
+    /**
+     * @param slab - Slab of stored requests
+     * @param hits - Counts polls answered from a request already stored for their resource
+     * @param admits - Counts polls whose request is stored in the slab
+     * @param evicts - Counts polls evicted from the slab to make room for a more frequently polled resource
+     */
+    public SlabAdmission(
+        Slab slab,
+        AtomicCounter hits,
+        AtomicCounter admits,
+        AtomicCounter evicts)
+    {
+        final int totalSlots = slab.totalSlots();
+        this.slab = slab;
+        this.sketch = new FrequencySketch(totalSlots);
+        this.hits = hits;
+        this.admits = admits;
+        this.evicts = evicts;
+        this.occupants = new int[totalSlots];
+        this.positions = new int[totalSlots];
+        this.keys = new long[totalSlots];
+        this.evictors = new BooleanSupplier[totalSlots];
+        Arrays.fill(positions, NO_POSITION);
+    }
+
+    /**
+     * Acquires a slot for a request, evicting a less frequently polled resource if the slab is full
+     * @param streamId - Stream id
+     * @param key - Resource key of a poll, or NO_KEY for other requests which never evict
+     * @return Id of the acquired slot, or NO_SLOT if the request is not admitted
+     */
+    public int acquire(
+        long streamId,
+        long key)
+    {
+        if (key != NO_KEY)
+        {
+            sketch.increment(key);
+        }
+
+        int slot = slab.acquire(streamId);
+        if (slot == Slab.NO_SLOT && key != NO_KEY && evictFor(key))
+        {
+            slot = slab.acquire(streamId);
+        }
+
+        if (slot != Slab.NO_SLOT && key != NO_KEY)
+        {
+            admits.increment();
+        }
+
+        return slot;
+    }
+
+    /**
+     * Records a poll answered from a request already stored for its resource
+     * @param key - Resource key of the poll
+     */
+    public void onHit(
+        long key)
+    {
+        sketch.increment(key);
+        hits.increment();
+    }
+
+    /**
+     * Makes the slot of a scheduled poll a candidate for eviction
+     * @param slot - Slot holding the poll's request
+     * @param key - Resource key of the poll
+     * @param evictor - Cancels the poll, sends its request upstream and releases its slot, or returns false if the
+     *                  poll can no longer be evicted
+     */
+    public void occupy(
+        int slot,
+        long key,
+        BooleanSupplier evictor)
+    {
+        assert positions[slot] == NO_POSITION;
+        positions[slot] = occupantCount;
+        occupants[occupantCount++] = slot;
+        keys[slot] = key;
+        evictors[slot] = evictor;
+    }
+
+    /**
+     * Stops a slot being a candidate for eviction, once its poll has fired or been cancelled
+     * @param slot - Slot holding the poll's request
+     */
+    public void vacate(
+        int slot)
+    {
+        final int position = positions[slot];
+        if (position != NO_POSITION)
+        {
+            final int last = occupants[--occupantCount];
+            occupants[position] = last;
+            positions[last] = position;
+            positions[slot] = NO_POSITION;
+            evictors[slot] = null;
+        }
+    }
+
+    private boolean evictFor(
+        long key)
+    {
+        if (occupantCount == 0)
+        {
+            return false;
+        }
+
+        int victim = Slab.NO_SLOT;
+        int victimFrequency = sketch.frequency(key);
+
+        final int samples = Math.min(SAMPLED_VICTIMS, occupantCount);
+        for (int i = 0; i < samples; i++)
+        {
+            final int slot = occupants[(sampleCursor + i) % occupantCount];
+            final int frequency = sketch.frequency(keys[slot]);
+            if (frequency < victimFrequency)
+            {
+                victim = slot;
+                victimFrequency = frequency;
+            }
+        }
+        sampleCursor = (sampleCursor + samples) % occupantCount;
+
+        if (victim == Slab.NO_SLOT)
+        {
+            return false;
+        }
+
+        final BooleanSupplier evictor = evictors[victim];
+        vacate(victim);
+
+        final boolean evicted = evictor.getAsBoolean();
+        if (evicted)
+        {
+            evicts.increment();
+        }
+        return evicted;
+    }
+}
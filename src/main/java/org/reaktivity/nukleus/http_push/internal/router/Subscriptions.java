@@ -0,0 +1,364 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.http_push.internal.router;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.LongConsumer;
+
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.collections.Long2ObjectHashMap;
+import org.agrona.collections.LongArrayList;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.reaktivity.nukleus.http_push.internal.routable.stream.StoredHeaders;
+import org.reaktivity.nukleus.http_push.internal.types.HttpHeaderFW;
+import org.reaktivity.nukleus.http_push.internal.types.ListFW;
+import org.reaktivity.nukleus.http_push.internal.types.StringFW;
+import org.reaktivity.nukleus.http_push.internal.types.stream.HttpBeginExFW;
+
+/**
+ * Registry of clients polling the same resource.
+ * <p>
+ * The first poll for a resource leads, it is scheduled and sent upstream as usual and its request stays in the
+ * slab. Later polls for the same resource subscribe to the leader instead of polling upstream themselves, and are
+ * answered from the leader's response when it arrives. Resources are keyed by a hash of the request headers that
+ * identify them and of the route they are polled through, and a subscription is only accepted when the leader was
+ * routed the same way, its stored request has exactly the same identifying headers, and it polls no later than the
+ * subscriber would have polled itself.
+ */
+public final class Subscriptions
+{
+    public static final long NO_KEY = 0L;
+
+    // how long later polls may subscribe to a leading poll that has not had its response yet
+    public static final long SUBSCRIPTION_TIMEOUT_MILLIS = 30000L;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    // the response is only shared between clients that would each have been sent it
+    private static final DirectBuffer[] RESOURCE_HEADER_NAMES =
+    {
+        new UnsafeBuffer(":authority".getBytes(UTF_8)),
+        new UnsafeBuffer(":path".getBytes(UTF_8)),
+        new UnsafeBuffer(":scheme".getBytes(UTF_8)),
+        new UnsafeBuffer(":method".getBytes(UTF_8)),
+        new UnsafeBuffer("authorization".getBytes(UTF_8)),
+        new UnsafeBuffer("cookie".getBytes(UTF_8))
+    };
+    private static final int REQUIRED_HEADER_COUNT = 2;
+
+    private final HttpHeaderFW headerRO = new HttpHeaderFW();
+    private final ListFW<HttpHeaderFW> leaderHeadersRO = new HttpBeginExFW().headers();
+
+    private final Long2ObjectHashMap<Subscription> subscriptionsByKey;
+    private final Deque<Subscription> pool;
+    private final StoredHeaders storedHeaders;
+    private final MutableDirectBuffer decodeBuffer;
+
+    public Subscriptions(
+        StoredHeaders storedHeaders)
+    {
+        this.subscriptionsByKey = new Long2ObjectHashMap<>();
+        this.pool = new ArrayDeque<>();
+        this.storedHeaders = storedHeaders;
+        this.decodeBuffer = new UnsafeBuffer(new byte[storedHeaders.maximumHeadersSize()]);
+    }
+
+    public long resourceKey(
+        ListFW<HttpHeaderFW> headers)
+    {
+        long key = FNV_OFFSET_BASIS;
+
+        for (int i = 0; i < RESOURCE_HEADER_NAMES.length; i++)
+        {
+            final StringFW value = findValue(headers, RESOURCE_HEADER_NAMES[i]);
+            if (value == null)
+            {
+                if (i < REQUIRED_HEADER_COUNT)
+                {
+                    return NO_KEY;
+                }
+                continue;
+            }
+
+            key = (key ^ i) * FNV_PRIME;
+
+            final DirectBuffer buffer = value.buffer();
+            for (int offset = value.offset(); offset < value.limit(); offset++)
+            {
+                key = (key ^ (buffer.getByte(offset) & 0xff)) * FNV_PRIME;
+            }
+        }
+
+        return key == NO_KEY ? FNV_OFFSET_BASIS : key;
+    }
+
+    /**
+     * Keys a resource polled through a route, so that polls routed differently never share a response
+     * @param resourceKey - Resource key of the request headers, see {@link #resourceKey(ListFW)}
+     * @param sourceRef - Source reference of the route
+     * @param targetName - Name of the route's target
+     * @param targetRef - Target reference of the route
+     * @return Key to lead and subscribe with, or NO_KEY if the resource has none
+     */
+    public long subscriptionKey(
+        long resourceKey,
+        long sourceRef,
+        String targetName,
+        long targetRef)
+    {
+        if (resourceKey == NO_KEY)
+        {
+            return NO_KEY;
+        }
+
+        long key = (resourceKey ^ sourceRef) * FNV_PRIME;
+        key = (key ^ targetName.hashCode()) * FNV_PRIME;
+        key = (key ^ targetRef) * FNV_PRIME;
+
+        return key == NO_KEY ? FNV_OFFSET_BASIS : key;
+    }
+
+    public boolean lead(
+        long key,
+        long sourceRef,
+        String targetName,
+        long targetRef,
+        ListFW<HttpHeaderFW> headers,
+        int slotIndex,
+        int slotLimit,
+        long now,
+        long pollAt,
+        long expiresAt)
+    {
+        if (key == NO_KEY)
+        {
+            return false;
+        }
+
+        Subscription subscription = subscriptionsByKey.get(key);
+        if (subscription == null)
+        {
+            subscription = pool.isEmpty() ? new Subscription() : pool.poll();
+            subscriptionsByKey.put(key, subscription);
+        }
+        else if (subscription.expiresAt > now || !sameResource(sourceRef, targetName, targetRef, headers, subscription))
+        {
+            return false;
+        }
+
+        // a leader that never got its response is replaced, keeping its subscribers
+        subscription.sourceRef = sourceRef;
+        subscription.targetName = targetName;
+        subscription.targetRef = targetRef;
+        subscription.slotIndex = slotIndex;
+        subscription.slotLimit = slotLimit;
+        subscription.pollAt = pollAt;
+        subscription.expiresAt = expiresAt;
+
+        return true;
+    }
+
+    /**
+     * Subscribes a poll to the leading poll for the same resource, polled through the same route
+     * @param key - Subscription key of the poll, see {@link #subscriptionKey(long, long, String, long)}
+     * @param sourceRef - Source reference of the route the poll was received on
+     * @param targetName - Name of the target of the route
+     * @param targetRef - Target reference of the route
+     * @param headers - Request headers of the poll
+     * @param subscriberId - Correlation id of the poll
+     * @param now - Current time
+     * @param requestedAt - Time at which the poll would be sent if it were scheduled on its own
+     * @return true if subscribed, false if the poll must be scheduled on its own
+     */
+    public boolean subscribe(
+        long key,
+        long sourceRef,
+        String targetName,
+        long targetRef,
+        ListFW<HttpHeaderFW> headers,
+        long subscriberId,
+        long now,
+        long requestedAt)
+    {
+        if (key == NO_KEY)
+        {
+            return false;
+        }
+
+        final Subscription subscription = subscriptionsByKey.get(key);
+        if (subscription == null || subscription.expiresAt <= now || subscription.pollAt > requestedAt ||
+            !sameResource(sourceRef, targetName, targetRef, headers, subscription))
+        {
+            // a client polling sooner than the leader is not held back until the leader's response
+            return false;
+        }
+
+        subscription.subscriberIds.addLong(subscriberId);
+        return true;
+    }
+
+    public int fanOut(
+        long key,
+        LongConsumer subscriber)
+    {
+        final Subscription subscription = subscriptionsByKey.remove(key);
+        if (subscription == null)
+        {
+            return 0;
+        }
+
+        final LongArrayList subscriberIds = subscription.subscriberIds;
+        final int subscriberCount = subscriberIds.size();
+        for (int i = 0; i < subscriberCount; i++)
+        {
+            subscriber.accept(subscriberIds.getLong(i));
+        }
+
+        subscriberIds.clear();
+        pool.offer(subscription);
+
+        return subscriberCount;
+    }
+
+    /**
+     * Gives up leading a resource, unless other clients are waiting for the leader's response
+     * @param key - Resource key the poll leads
+     * @param slotIndex - Slab slot holding the leader's request
+     * @return true if no client depends on the leader any more, false if it has subscribers
+     */
+    public boolean cancel(
+        long key,
+        int slotIndex)
+    {
+        final Subscription subscription = subscriptionsByKey.get(key);
+        if (subscription == null || subscription.slotIndex != slotIndex)
+        {
+            // already answered, or led by a later poll
+            return true;
+        }
+
+        if (!subscription.subscriberIds.isEmpty())
+        {
+            return false;
+        }
+
+        subscriptionsByKey.remove(key);
+        pool.offer(subscription);
+
+        return true;
+    }
+
+    public int subscriberCount(
+        long key)
+    {
+        final Subscription subscription = subscriptionsByKey.get(key);
+        return subscription != null ? subscription.subscriberIds.size() : 0;
+    }
+
+    private boolean sameResource(
+        long sourceRef,
+        String targetName,
+        long targetRef,
+        ListFW<HttpHeaderFW> headers,
+        Subscription subscription)
+    {
+        if (subscription.sourceRef != sourceRef || subscription.targetRef != targetRef ||
+            !subscription.targetName.equals(targetName))
+        {
+            return false;
+        }
+
+        final ListFW<HttpHeaderFW> leaderHeaders =
+                storedHeaders.headers(subscription.slotIndex, subscription.slotLimit, decodeBuffer, leaderHeadersRO);
+
+        for (int i = 0; i < RESOURCE_HEADER_NAMES.length; i++)
+        {
+            final DirectBuffer name = RESOURCE_HEADER_NAMES[i];
+
+            final StringFW value = findValue(headers, name);
+            final DirectBuffer buffer = value != null ? value.buffer() : null;
+            final int offset = value != null ? value.offset() : 0;
+            final int length = value != null ? value.sizeof() : -1;
+
+            final StringFW leaderValue = findValue(leaderHeaders, name);
+            final int leaderLength = leaderValue != null ? leaderValue.sizeof() : -1;
+
+            if (length != leaderLength ||
+                (length != -1 && !equals(buffer, offset, leaderValue.buffer(), leaderValue.offset(), length)))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private StringFW findValue(
+        ListFW<HttpHeaderFW> headers,
+        DirectBuffer name)
+    {
+        final DirectBuffer buffer = headers.buffer();
+        final int limit = headers.limit();
+        final int nameLength = name.capacity();
+
+        for (int offset = headers.offset(); offset < limit; offset = headerRO.limit())
+        {
+            final StringFW headerName = headerRO.wrap(buffer, offset, limit).name();
+            if (headerName.sizeof() - 1 == nameLength &&
+                equals(buffer, headerName.offset() + 1, name, 0, nameLength))
+            {
+                return headerRO.value();
+            }
+        }
+
+        return null;
+    }
+
+    private static boolean equals(
+        DirectBuffer buffer1,
+        int offset1,
+        DirectBuffer buffer2,
+        int offset2,
+        int length)
+    {
+        for (int i = 0; i < length; i++)
+        {
+            if (buffer1.getByte(offset1 + i) != buffer2.getByte(offset2 + i))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Subscription
+    {
+        private final LongArrayList subscriberIds = new LongArrayList();
+
+        private long sourceRef;
+        private String targetName;
+        private long targetRef;
+        private int slotIndex;
+        private int slotLimit;
+        private long pollAt;
+        private long expiresAt;
+    }
+}
@@ -15,9 +15,11 @@
  */
 package org.reaktivity.nukleus.http_push.internal.util;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.SortedSet;
 import java.util.TreeSet;
-import java.util.function.BiFunction;
+import java.util.function.LongSupplier;
 
 import org.agrona.collections.Long2ObjectHashMap;
 
@@ -25,9 +27,21 @@ public class DelayedTaskScheduler
 {
     private final Long2ObjectHashMap<Runnable> taskLookup;
     private final SortedSet<Long> scheduledTimes;
+    private final LongSupplier currentTime;
+    private final int maximumTasksPerCycle;
 
-    public DelayedTaskScheduler()
+    /**
+     * @param currentTime - Supplies the current time, in the unit tasks are scheduled in
+     * @param maximumTasksPerCycle - Most tasks run by one call to {@link #process()}, later ones carry over
+     */
+    public DelayedTaskScheduler(LongSupplier currentTime, int maximumTasksPerCycle)
     {
+        if (maximumTasksPerCycle <= 0)
+        {
+            throw new IllegalArgumentException("maximumTasksPerCycle is not positive");
+        }
+        this.currentTime = currentTime;
+        this.maximumTasksPerCycle = maximumTasksPerCycle;
         this.taskLookup = new Long2ObjectHashMap<>();
         this.scheduledTimes = new TreeSet<>();
     }
@@ -40,32 +54,149 @@ public class DelayedTaskScheduler
         }
         else
         {
-            this.taskLookup.merge(time, task, mergeTasks);
+            final Runnable scheduled = taskLookup.get(time);
+            if (scheduled instanceof MergedTasks)
+            {
+                ((MergedTasks) scheduled).tasks.add(task);
+            }
+            else
+            {
+                taskLookup.put(time, new MergedTasks(scheduled, task));
+            }
+        }
+    }
+
+    /**
+     * Removes a task that has not run yet
+     * @param time - Time the task was scheduled at
+     * @param task - Task as it was scheduled
+     * @return true if the task was removed, false if it already ran or was never scheduled
+     */
+    public boolean cancel(long time, Runnable task)
+    {
+        final Runnable scheduled = taskLookup.get(time);
+
+        boolean cancelled = false;
+        if (scheduled == task)
+        {
+            remove(time);
+            cancelled = true;
+        }
+        else if (scheduled instanceof MergedTasks)
+        {
+            final MergedTasks merged = (MergedTasks) scheduled;
+            cancelled = merged.cancel(task);
+            if (merged.isDone())
+            {
+                remove(time);
+            }
         }
+        return cancelled;
     }
 
-    public void process()
+    /**
+     * Runs tasks that are due, earliest first, up to the maximum per cycle
+     * @return Number of tasks run
+     */
+    public int process()
     {
+        int workCount = 0;
         if (!scheduledTimes.isEmpty())
         {
-            long c = System.currentTimeMillis();
-            SortedSet<Long> past = scheduledTimes.headSet(c);
-            past.stream().forEach(t ->
+            final long now = currentTime.getAsLong();
+            while (workCount < maximumTasksPerCycle && !scheduledTimes.isEmpty())
+            {
+                // cheap when nothing is due, however fine the intervals scheduled
+                final long time = scheduledTimes.first();
+                if (time >= now)
                 {
-                    Runnable task = taskLookup.remove(t);
+                    break;
+                }
+
+                final Runnable task = taskLookup.get(time);
+                if (task instanceof MergedTasks)
+                {
+                    final MergedTasks merged = (MergedTasks) task;
+                    while (workCount < maximumTasksPerCycle && !merged.isDone())
+                    {
+                        merged.runNext();
+                        workCount++;
+                    }
+                    if (merged.isDone())
+                    {
+                        remove(time);
+                    }
+                }
+                else
+                {
+                    remove(time);
                     task.run();
+                    workCount++;
                 }
-            );
-            scheduledTimes.removeAll(past);
+            }
         }
+        return workCount;
     }
 
-    private static BiFunction<? super Runnable, ? super Runnable, ? extends Runnable> mergeTasks = (t1, t2) ->
+    /**
+     * Gets how far behind its time the earliest task that has not run yet is
+     * @return Lag in the unit tasks are scheduled in, or 0 if no task is overdue
+     */
+    public long lag()
     {
-        return () ->
+        return scheduledTimes.isEmpty() ? 0L : Math.max(currentTime.getAsLong() - scheduledTimes.first(), 0L);
+    }
+
+    private void remove(long time)
+    {
+        taskLookup.remove(time);
+        scheduledTimes.remove(time);
+    }
+
+    private static final class MergedTasks implements Runnable
+    {
+        private final List<Runnable> tasks;
+
+        // tasks before this index have run
+        private int next;
+
+        private MergedTasks(Runnable task1, Runnable task2)
+        {
+            this.tasks = new ArrayList<>(2);
+            tasks.add(task1);
+            tasks.add(task2);
+        }
+
+        private boolean isDone()
         {
-            t1.run();
-            t2.run();
-        };
-    };
+            return next == tasks.size();
+        }
+
+        private void runNext()
+        {
+            tasks.get(next++).run();
+        }
+
+        private boolean cancel(Runnable task)
+        {
+            for (int i = next; i < tasks.size(); i++)
+            {
+                if (tasks.get(i) == task)
+                {
+                    tasks.remove(i);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void run()
+        {
+            while (!isDone())
+            {
+                runNext();
+            }
+        }
+    }
 }
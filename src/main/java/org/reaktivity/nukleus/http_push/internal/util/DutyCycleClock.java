@@ -0,0 +1,72 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.http_push.internal.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.agrona.concurrent.NanoClock;
+
+/**
+ * Monotonic clock read once per duty cycle, so that every stream handled in the cycle sees the same time and
+ * scheduling is not thrown by steps of the wall clock. Milliseconds are counted from an arbitrary origin and only
+ * compare with each other, they are converted to and from epoch milliseconds where times are stored across restarts.
+ * <b>Each instance of this class is assumed to be used by one and only one thread.</b>
+ */
+public final class DutyCycleClock
+{
+    private final NanoClock nanoClock;
+    private final long epochOffsetMillis;
+
+    private long nanoTime;
+
+    public DutyCycleClock(
+        NanoClock nanoClock)
+    {
+        this.nanoClock = nanoClock;
+        this.nanoTime = nanoClock.nanoTime();
+        this.epochOffsetMillis = System.currentTimeMillis() - millis();
+    }
+
+    /**
+     * Reads the underlying clock, called at the start of each duty cycle
+     */
+    public void update()
+    {
+        nanoTime = nanoClock.nanoTime();
+    }
+
+    public long nanoTime()
+    {
+        return nanoTime;
+    }
+
+    public long millis()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(nanoTime);
+    }
+
+    public long toEpochMillis(
+        long millis)
+    {
+        return millis + epochOffsetMillis;
+    }
+
+    public long fromEpochMillis(
+        long epochMillis)
+    {
+        return epochMillis - epochOffsetMillis;
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.http_push.internal.util;
+
+import static org.agrona.BitUtil.findNextPositivePowerOfTwo;
+
+/**
+ * Approximate counts of how often keys were seen, in a count-min sketch of 4-bit counters. Counts are halved
+ * once the number of increments reaches ten times the width of the sketch, so that they reflect recent demand.
+ * <b>Each instance of this class is assumed to be used by one and only one thread.</b>
+ */
+public final class FrequencySketch
+{
+    public static final int MAXIMUM_FREQUENCY = 15;
+
+    private static final long[] SEEDS =
+    {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+
+    private int size;
+
+    /**
+     * @param expectedKeys - Number of keys whose counts should be told apart
+     */
+    public FrequencySketch(
+        int expectedKeys)
+    {
+        final int width = findNextPositivePowerOfTwo(Math.max(expectedKeys, 1));
+        this.table = new long[width];
+        this.tableMask = width - 1;
+        this.sampleSize = 10 * width;
+    }
+
+    public int frequency(
+        long key)
+    {
+        int frequency = MAXIMUM_FREQUENCY;
+        for (int i = 0; i < SEEDS.length; i++)
+        {
+            final int hash = hash(key, i);
+            final int shift = (hash & 0xf) << 2;
+            final int count = (int) (table[(hash >>> 4) & tableMask] >>> shift) & 0xf;
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    public void increment(
+        long key)
+    {
+        boolean incremented = false;
+        for (int i = 0; i < SEEDS.length; i++)
+        {
+            final int hash = hash(key, i);
+            final int shift = (hash & 0xf) << 2;
+            final int index = (hash >>> 4) & tableMask;
+            if (((table[index] >>> shift) & 0xfL) != MAXIMUM_FREQUENCY)
+            {
+                table[index] += 1L << shift;
+                incremented = true;
+            }
+        }
+
+        if (incremented && ++size == sampleSize)
+        {
+            reset();
+        }
+    }
+
+    private void reset()
+    {
+        for (int i = 0; i < table.length; i++)
+        {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size >>>= 1;
+    }
+
+    private static int hash(
+        long key,
+        int row)
+    {
+        long hash = (key + SEEDS[row]) * SEEDS[row];
+        hash += hash >>> 32;
+        return (int) hash;
+    }
+}
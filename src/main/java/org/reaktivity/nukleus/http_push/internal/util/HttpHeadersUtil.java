@@ -16,11 +16,18 @@
 
 package org.reaktivity.nukleus.http_push.internal.util;
 
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.agrona.BitUtil.SIZE_OF_BYTE;
+
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
 import org.reaktivity.nukleus.http_push.internal.types.HttpHeaderFW;
 import org.reaktivity.nukleus.http_push.internal.types.ListFW;
+import org.reaktivity.nukleus.http_push.internal.types.StringFW;
 
 // TODO move into ListFW and HttpHeaderFW by implementing stream
 public final class HttpHeadersUtil
@@ -31,12 +38,138 @@ public final class HttpHeadersUtil
     public static final String INJECTED_HEADER_DEFAULT_VALUE = CACHE_SYNC;
     public static final String INJECTED_HEADER_AND_NO_CACHE_VALUE = INJECTED_HEADER_DEFAULT_VALUE + ", no-cache";
     public static final String POLL_HEADER_NAME = "x-retry-after";
+    public static final String POLL_MILLIS_HEADER_NAME = "x-retry-after-ms";
+    public static final int NO_POLL_INTERVAL = -1;
 
     public static final Predicate<HttpHeaderFW> PUSH_TIMER_FILTER =
             h -> INJECTED_HEADER_NAME.equals(h.name().toString());
 
+    private static final DirectBuffer INJECTED_HEADER_NAME_BYTES = asciiBytes(INJECTED_HEADER_NAME);
+    private static final DirectBuffer INJECTED_HEADER_DEFAULT_VALUE_BYTES = asciiBytes(INJECTED_HEADER_DEFAULT_VALUE);
+    private static final DirectBuffer INJECTED_HEADER_AND_NO_CACHE_VALUE_BYTES = asciiBytes(INJECTED_HEADER_AND_NO_CACHE_VALUE);
+    private static final DirectBuffer POLL_HEADER_NAME_BYTES = asciiBytes(POLL_HEADER_NAME);
+    private static final DirectBuffer POLL_MILLIS_HEADER_NAME_BYTES = asciiBytes(POLL_MILLIS_HEADER_NAME);
+    private static final DirectBuffer CACHE_CONTROL_NAME_BYTES = asciiBytes("cache-control");
+    private static final DirectBuffer NO_CACHE_BYTES = asciiBytes("no-cache");
+
     public static final Predicate<HttpHeaderFW> IS_POLL_HEADER =
-                    h -> POLL_HEADER_NAME.equals(h.name().asString());
+            h -> equalTo(h.name(), POLL_HEADER_NAME_BYTES) || equalTo(h.name(), POLL_MILLIS_HEADER_NAME_BYTES);
+
+    public static final Predicate<HttpHeaderFW> IS_INJECTED_HEADER =
+            h -> equalTo(h.name(), INJECTED_HEADER_NAME_BYTES);
+
+    public static final Predicate<HttpHeaderFW> IS_CACHE_CONTROL_HEADER =
+            h -> equalTo(h.name(), CACHE_CONTROL_NAME_BYTES);
+
+    public static boolean isPollHeaderName(String name)
+    {
+        return POLL_HEADER_NAME.equals(name) || POLL_MILLIS_HEADER_NAME.equals(name);
+    }
+
+    /**
+     * Parses the poll interval of an x-retry-after header, in seconds with an optional fraction,
+     * or of an x-retry-after-ms header, in milliseconds
+     * @param header - Poll header
+     * @return Poll interval in milliseconds
+     * @throws NumberFormatException if the value is not a poll interval
+     */
+    public static int pollIntervalMillis(HttpHeaderFW header)
+    {
+        final int pollIntervalMillis = parsePollIntervalMillis(header);
+        if (pollIntervalMillis == NO_POLL_INTERVAL)
+        {
+            throw new NumberFormatException("not a poll interval: " + header.value().asString());
+        }
+        return pollIntervalMillis;
+    }
+
+    /**
+     * Parses the poll interval of a poll header as {@link #pollIntervalMillis(HttpHeaderFW)} does,
+     * without throwing, so that requests can be validated on the hot path
+     * @param header - Poll header
+     * @return Poll interval in milliseconds, or {@link #NO_POLL_INTERVAL} if the value is not a poll interval
+     */
+    public static int parsePollIntervalMillis(HttpHeaderFW header)
+    {
+        final boolean inMillis = equalTo(header.name(), POLL_MILLIS_HEADER_NAME_BYTES);
+        final StringFW value = header.value();
+        final DirectBuffer buffer = value.buffer();
+        final int limit = value.limit();
+
+        int whole = 0;
+        int fraction = 0;
+        int fractionScale = -1;
+        boolean hasDigits = false;
+
+        for (int offset = value.offset() + 1; offset < limit; offset++)
+        {
+            final int b = buffer.getByte(offset);
+            if (b >= '0' && b <= '9')
+            {
+                hasDigits = true;
+                if (fractionScale == -1)
+                {
+                    if (whole > (Integer.MAX_VALUE - 9) / 10)
+                    {
+                        return NO_POLL_INTERVAL;
+                    }
+                    whole = whole * 10 + (b - '0');
+                }
+                else
+                {
+                    // digits finer than a millisecond are ignored
+                    fraction += (b - '0') * fractionScale;
+                    fractionScale /= 10;
+                }
+            }
+            else if (b == '.' && !inMillis && fractionScale == -1)
+            {
+                fractionScale = 100;
+            }
+            else
+            {
+                return NO_POLL_INTERVAL;
+            }
+        }
+
+        if (!hasDigits)
+        {
+            return NO_POLL_INTERVAL;
+        }
+        if (inMillis)
+        {
+            return whole;
+        }
+        if (whole > (Integer.MAX_VALUE - 999) / 1000)
+        {
+            return NO_POLL_INTERVAL;
+        }
+        return whole * 1000 + fraction;
+    }
+
+    /**
+     * Encodes constant headers once, to be appended to encoded header lists with a single copy
+     * @param namesAndValues - Names of the headers, each followed by its value
+     * @return Buffer holding exactly the encoded headers
+     */
+    public static DirectBuffer encodeHeaders(String... namesAndValues)
+    {
+        final MutableDirectBuffer buffer = new UnsafeBuffer(new byte[namesAndValues.length * 257]);
+        final HttpHeaderFW.Builder headerRW = new HttpHeaderFW.Builder();
+
+        int limit = 0;
+        for (int i = 0; i < namesAndValues.length; i += 2)
+        {
+            limit = headerRW.wrap(buffer, limit, buffer.capacity())
+                            .representation((byte) 0)
+                            .name(namesAndValues[i])
+                            .value(namesAndValues[i + 1])
+                            .build()
+                            .limit();
+        }
+
+        return new UnsafeBuffer(buffer.byteArray(), 0, limit);
+    }
 
     public static void forEachMatch(ListFW<HttpHeaderFW> headers, Predicate<HttpHeaderFW> predicate,
             Consumer<HttpHeaderFW> consumer)
@@ -51,24 +184,55 @@ public final class HttpHeadersUtil
     }
 
     public static final Predicate<? super HttpHeaderFW> INJECTED_DEFAULT_HEADER = h ->
-    {
-        String name = h.name().asString();
-        String value = h.value().asString();
-        return INJECTED_HEADER_NAME.equals(name) && INJECTED_HEADER_DEFAULT_VALUE.equals(value);
-    };
+            equalTo(h.name(), INJECTED_HEADER_NAME_BYTES) && equalTo(h.value(), INJECTED_HEADER_DEFAULT_VALUE_BYTES);
 
     public static final Predicate<? super HttpHeaderFW> INJECTED_HEADER_AND_NO_CACHE = h ->
-    {
-        String name = h.name().asString();
-        String value = h.value().asString();
-        return INJECTED_HEADER_NAME.equals(name) && INJECTED_HEADER_AND_NO_CACHE_VALUE.equals(value);
-    };
+            equalTo(h.name(), INJECTED_HEADER_NAME_BYTES) && equalTo(h.value(), INJECTED_HEADER_AND_NO_CACHE_VALUE_BYTES);
 
+    // TODO proper parsing of value
     public static final Predicate<? super HttpHeaderFW> NO_CACHE_CACHE_CONTROL = h ->
+            equalTo(h.name(), CACHE_CONTROL_NAME_BYTES) && contains(h.value(), NO_CACHE_BYTES);
+
+    /**
+     * Compares a string with ASCII bytes in place, without decoding it
+     * @param string - String to compare
+     * @param bytes - Buffer holding exactly the expected bytes
+     * @return true if the string holds the same bytes
+     */
+    public static boolean equalTo(StringFW string, DirectBuffer bytes)
+    {
+        final int length = string.sizeof() - SIZE_OF_BYTE;
+        return length == bytes.capacity() && regionMatches(string.buffer(), string.offset() + SIZE_OF_BYTE, bytes);
+    }
+
+    private static boolean contains(StringFW string, DirectBuffer bytes)
     {
-        String name = h.name().asString();
-        String value = h.value().asString();
-        // TODO proper parsing of value
-        return "cache-control".equals(name) && value.contains("no-cache");
-    };
+        final DirectBuffer buffer = string.buffer();
+        final int limit = string.limit() - bytes.capacity();
+        for (int offset = string.offset() + SIZE_OF_BYTE; offset <= limit; offset++)
+        {
+            if (regionMatches(buffer, offset, bytes))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean regionMatches(DirectBuffer buffer, int offset, DirectBuffer bytes)
+    {
+        for (int i = 0; i < bytes.capacity(); i++)
+        {
+            if (buffer.getByte(offset + i) != bytes.getByte(i))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static DirectBuffer asciiBytes(String value)
+    {
+        return new UnsafeBuffer(value.getBytes(US_ASCII));
+    }
 }
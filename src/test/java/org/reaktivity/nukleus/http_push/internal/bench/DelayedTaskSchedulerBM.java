@@ -0,0 +1,109 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.http_push.internal.bench;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import org.agrona.concurrent.SystemNanoClock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.reaktivity.nukleus.http_push.internal.util.DelayedTaskScheduler;
+import org.reaktivity.nukleus.http_push.internal.util.DutyCycleClock;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Fork(3)
+@Warmup(iterations = 5, time = 1, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = SECONDS)
+@OutputTimeUnit(SECONDS)
+public class DelayedTaskSchedulerBM
+{
+    private static final long FAR_FUTURE = Long.MAX_VALUE / 2;
+
+    @Param({ "0", "1000", "100000" })
+    public int queueDepth;
+
+    private final Runnable task = this::onTask;
+
+    private DutyCycleClock clock;
+    private DelayedTaskScheduler scheduler;
+    private long expiredTime;
+    private long tasksRun;
+
+    @Setup(Level.Trial)
+    public void reinit()
+    {
+        this.clock = new DutyCycleClock(new SystemNanoClock());
+        this.scheduler = new DelayedTaskScheduler(clock::millis, Integer.MAX_VALUE);
+
+        // expired tasks are scheduled at increasing times that stay in the past
+        this.expiredTime = Long.MIN_VALUE / 2;
+
+        // pending tasks that never expire during the benchmark, at distinct times so they are not merged
+        for (int i = 0; i < queueDepth; i++)
+        {
+            scheduler.schedule(FAR_FUTURE + i, task);
+        }
+    }
+
+    @Benchmark
+    public long scheduleAndProcess()
+    {
+        scheduler.schedule(++expiredTime, task);
+        clock.update();
+        scheduler.process();
+        return tasksRun;
+    }
+
+    @Benchmark
+    public long processIdle()
+    {
+        clock.update();
+        scheduler.process();
+        return tasksRun;
+    }
+
+    private void onTask()
+    {
+        tasksRun++;
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+                .include(DelayedTaskSchedulerBM.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .forks(0)
+                .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.http_push.internal.bench;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.reaktivity.nukleus.http_push.internal.bench.BenchmarkSupport.REQUEST_HEADERS;
+import static org.reaktivity.nukleus.http_push.internal.util.HttpHeadersUtil.INJECTED_DEFAULT_HEADER;
+import static org.reaktivity.nukleus.http_push.internal.util.HttpHeadersUtil.INJECTED_HEADER_AND_NO_CACHE;
+import static org.reaktivity.nukleus.http_push.internal.util.HttpHeadersUtil.IS_POLL_HEADER;
+import static org.reaktivity.nukleus.http_push.internal.util.HttpHeadersUtil.NO_CACHE_CACHE_CONTROL;
+import static org.reaktivity.nukleus.http_push.internal.util.HttpHeadersUtil.forEachMatch;
+
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.reaktivity.nukleus.http_push.internal.types.HttpHeaderFW;
+import org.reaktivity.nukleus.http_push.internal.types.ListFW;
+import org.reaktivity.nukleus.http_push.internal.types.stream.HttpBeginExFW;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Fork(3)
+@Warmup(iterations = 5, time = 1, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = SECONDS)
+@OutputTimeUnit(SECONDS)
+public class HttpHeadersUtilBM
+{
+    @Param({ "10", "20", "40" })
+    public int headerCount;
+
+    private final HttpBeginExFW.Builder httpBeginExRW = new HttpBeginExFW.Builder();
+    private final HttpBeginExFW httpBeginExRO = new HttpBeginExFW();
+
+    private ListFW<HttpHeaderFW> headers;
+
+    @Setup(Level.Trial)
+    public void reinit()
+    {
+        final MutableDirectBuffer buffer = new UnsafeBuffer(new byte[8192]);
+
+        // the headers under test are at the end of the list, so predicates scan the whole list
+        final HttpBeginExFW httpBeginEx = httpBeginExRW.wrap(buffer, 0, buffer.capacity())
+                .headers(hs ->
+                {
+                    for (int i = 0; i < headerCount - 3; i++)
+                    {
+                        final String[] header = REQUEST_HEADERS[i];
+                        hs.item(h -> h.representation((byte) 0).name(header[0]).value(header[1]));
+                    }
+                    hs.item(h -> h.representation((byte) 0).name("cache-control").value("max-age=0, no-cache"));
+                    hs.item(h -> h.representation((byte) 0).name("x-poll-injected").value("x-http-cache-sync"));
+                    hs.item(h -> h.representation((byte) 0).name("x-retry-after").value("5"));
+                })
+                .build();
+
+        this.headers = httpBeginExRO.wrap(buffer, 0, httpBeginEx.limit()).headers();
+    }
+
+    @Benchmark
+    public boolean isPollHeader()
+    {
+        return headers.anyMatch(IS_POLL_HEADER);
+    }
+
+    @Benchmark
+    public boolean injectedDefaultHeader()
+    {
+        return headers.anyMatch(INJECTED_DEFAULT_HEADER);
+    }
+
+    @Benchmark
+    public boolean injectedHeaderAndNoCache()
+    {
+        return headers.anyMatch(INJECTED_HEADER_AND_NO_CACHE);
+    }
+
+    @Benchmark
+    public boolean noCacheCacheControl()
+    {
+        return headers.anyMatch(NO_CACHE_CACHE_CONTROL);
+    }
+
+    @Benchmark
+    public void forEachPollHeader(
+        Blackhole blackhole)
+    {
+        forEachMatch(headers, IS_POLL_HEADER, blackhole::consume);
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+                .include(HttpHeadersUtilBM.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .forks(0)
+                .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,380 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.http_push.internal.bench;
+
+import static java.nio.file.FileVisitOption.FOLLOW_LINKS;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.reaktivity.nukleus.Configuration.DIRECTORY_PROPERTY_NAME;
+import static org.reaktivity.nukleus.Configuration.STREAMS_BUFFER_CAPACITY_PROPERTY_NAME;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.Random;
+
+import org.agrona.LangUtil;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.MessageHandler;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Control;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.reaktivity.nukleus.Configuration;
+import org.reaktivity.nukleus.http_push.internal.HttpPushController;
+import org.reaktivity.nukleus.http_push.internal.HttpPushStreams;
+import org.reaktivity.nukleus.http_push.internal.types.Flyweight;
+import org.reaktivity.nukleus.http_push.internal.types.stream.BeginFW;
+import org.reaktivity.nukleus.http_push.internal.types.stream.EndFW;
+import org.reaktivity.nukleus.http_push.internal.types.stream.HttpBeginExFW;
+import org.reaktivity.reaktor.Reaktor;
+
+/**
+ * Drives client requests carrying {@code x-poll-injected} and {@code x-retry-after} through the nukleus
+ * while a configurable number of long-interval polls stay pending in the scheduler and the slab.
+ * <p>
+ * The {@code throughput} group reports scheduled polls fired per second, the {@code latency} benchmark
+ * samples the time from writing the client BEGIN until the poll BEGIN is observed upstream.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Fork(3)
+@Warmup(iterations = 5, time = 1, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = SECONDS)
+@OutputTimeUnit(SECONDS)
+public class HttpPushPollBM
+{
+    private static final String PENDING_RETRY_AFTER = "86400";
+    private static final String IMMEDIATE_RETRY_AFTER = "0";
+
+    static
+    {
+        // enough slab slots for 100k pending polls plus those in flight
+        System.setProperty("nukleus.http_push.memory.for.repeat.requests", Integer.toString(128 * 1024 * 512));
+        System.setProperty("nukleus.http_push.maximum.request.size", Integer.toString(512));
+    }
+
+    private final Configuration configuration;
+    private final Reaktor reaktor;
+
+    {
+        Properties properties = new Properties();
+        properties.setProperty(DIRECTORY_PROPERTY_NAME, "target/nukleus-benchmarks");
+        properties.setProperty(STREAMS_BUFFER_CAPACITY_PROPERTY_NAME, Long.toString(1024L * 1024L * 16L));
+
+        this.configuration = new Configuration(properties);
+
+        try
+        {
+            Files.walk(configuration.directory(), FOLLOW_LINKS)
+                 .map(Path::toFile)
+                 .forEach(File::delete);
+        }
+        catch (IOException ex)
+        {
+            LangUtil.rethrowUnchecked(ex);
+        }
+
+        this.reaktor = Reaktor.builder()
+                              .config(configuration)
+                              .nukleus("http-push"::equals)
+                              .controller(HttpPushController.class::isAssignableFrom)
+                              .errorHandler(ex -> ex.printStackTrace(System.err))
+                              .build()
+                              .start();
+    }
+
+    private final BeginFW beginRO = new BeginFW();
+
+    private final BeginFW.Builder requestBeginRW = new BeginFW.Builder();
+    private final EndFW.Builder requestEndRW = new EndFW.Builder();
+    private final HttpBeginExFW.Builder requestBeginExRW = new HttpBeginExFW.Builder();
+
+    private final BeginFW.Builder replyBeginRW = new BeginFW.Builder();
+    private final EndFW.Builder replyEndRW = new EndFW.Builder();
+    private final HttpBeginExFW.Builder replyBeginExRW = new HttpBeginExFW.Builder();
+
+    private final MutableDirectBuffer requestBuffer = new UnsafeBuffer(new byte[512]);
+    private final MutableDirectBuffer replyBuffer = new UnsafeBuffer(new byte[256]);
+
+    private final MessageHandler ignoreFrame = (t, b, o, l) -> {};
+    private final MessageHandler handlePoll = this::handlePoll;
+
+    @Param({ "1000", "10000", "100000" })
+    public int pendingPolls;
+
+    private HttpPushStreams sourceInputStreams;
+    private HttpPushStreams targetInputStreams;
+    private HttpPushStreams targetReplyStreams;
+    private HttpPushStreams sourceReplyStreams;
+
+    private long sourceInputRef;
+    private long targetInputRef;
+
+    private long requestId;
+    private long replyId;
+    private long pollsFired;
+    private long pollsCounted;
+
+    @Setup(Level.Trial)
+    public void reinit() throws Exception
+    {
+        final Random random = new Random();
+        final HttpPushController controller = reaktor.controller(HttpPushController.class);
+
+        this.targetInputRef = random.nextLong();
+        this.sourceInputRef = controller.routeProxy("source", 0L, "target", targetInputRef).get();
+
+        this.sourceInputStreams = controller.streams("source");
+        this.targetInputStreams = controller.streams("source", "target");
+        this.targetReplyStreams = controller.streams("target");
+
+        this.requestId = random.nextLong() & 0x3fffffffffffffffL;
+        this.replyId = random.nextLong() & 0x3fffffffffffffffL;
+
+        for (int i = 0; i < pendingPolls; i++)
+        {
+            doRequest(PENDING_RETRY_AFTER, false);
+        }
+
+        // requests are processed in order, so the first immediate poll marks all pending polls as scheduled
+        doRequest(IMMEDIATE_RETRY_AFTER, true);
+        awaitPoll();
+        this.pollsCounted = pollsFired;
+
+        final Path sourceReplyPath = configuration.directory().resolve("source/streams/http-push#target");
+        while (!Files.exists(sourceReplyPath))
+        {
+            Thread.yield();
+        }
+        this.sourceReplyStreams = controller.streams("target", "source");
+    }
+
+    @TearDown(Level.Trial)
+    public void reset() throws Exception
+    {
+        HttpPushController controller = reaktor.controller(HttpPushController.class);
+
+        controller.unrouteProxy("source", sourceInputRef, "target", targetInputRef).get();
+
+        this.sourceInputStreams.close();
+        this.sourceInputStreams = null;
+
+        this.targetInputStreams.close();
+        this.targetInputStreams = null;
+
+        this.targetReplyStreams.close();
+        this.targetReplyStreams = null;
+
+        this.sourceReplyStreams.close();
+        this.sourceReplyStreams = null;
+
+        reaktor.close();
+    }
+
+    @Benchmark
+    @Group("throughput")
+    @GroupThreads(1)
+    public void writer(Control control) throws Exception
+    {
+        doRequest(IMMEDIATE_RETRY_AFTER, true);
+        sourceInputStreams.readThrottle(ignoreFrame);
+    }
+
+    @Benchmark
+    @Group("throughput")
+    @GroupThreads(1)
+    public void reader(Control control) throws Exception
+    {
+        while (!control.stopMeasurement && pollsCounted == pollsFired)
+        {
+            if (targetInputStreams.readStreams(handlePoll) == 0)
+            {
+                Thread.yield();
+            }
+            sourceReplyStreams.readStreams(ignoreFrame);
+        }
+
+        // one operation per fired poll, even when a single read observes several
+        if (pollsCounted < pollsFired)
+        {
+            pollsCounted++;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(MICROSECONDS)
+    public void latency() throws Exception
+    {
+        doRequest(IMMEDIATE_RETRY_AFTER, true);
+        awaitPoll();
+        sourceReplyStreams.readStreams(ignoreFrame);
+        sourceInputStreams.readThrottle(ignoreFrame);
+    }
+
+    private void awaitPoll()
+    {
+        final long fired = pollsFired;
+
+        while (pollsFired == fired)
+        {
+            if (targetInputStreams.readStreams(handlePoll) == 0)
+            {
+                Thread.yield();
+            }
+        }
+    }
+
+    private void handlePoll(
+        int msgTypeId,
+        MutableDirectBuffer buffer,
+        int index,
+        int length)
+    {
+        if (msgTypeId == BeginFW.TYPE_ID)
+        {
+            beginRO.wrap(buffer, index, index + length);
+            doReply(beginRO.correlationId());
+            pollsFired++;
+        }
+    }
+
+    private void doRequest(
+        String retryAfter,
+        boolean endRequest)
+    {
+        final long streamId = ++requestId;
+
+        final BeginFW begin = requestBeginRW.wrap(requestBuffer, 0, requestBuffer.capacity())
+                .streamId(streamId)
+                .source("source")
+                .sourceRef(sourceInputRef)
+                .correlationId(streamId)
+                .extension(e -> e.set(visitRequestHeaders(streamId, retryAfter)))
+                .build();
+
+        while (!sourceInputStreams.writeStreams(begin.typeId(), begin.buffer(), begin.offset(), begin.sizeof()))
+        {
+            Thread.yield();
+        }
+
+        if (endRequest)
+        {
+            final EndFW end = requestEndRW.wrap(requestBuffer, 0, requestBuffer.capacity())
+                    .streamId(streamId)
+                    .extension(e -> e.reset())
+                    .build();
+
+            while (!sourceInputStreams.writeStreams(end.typeId(), end.buffer(), end.offset(), end.sizeof()))
+            {
+                Thread.yield();
+            }
+        }
+    }
+
+    private void doReply(
+        long correlationId)
+    {
+        final long streamId = ++replyId;
+
+        final BeginFW begin = replyBeginRW.wrap(replyBuffer, 0, replyBuffer.capacity())
+                .streamId(streamId)
+                .source("target")
+                .sourceRef(0L)
+                .correlationId(correlationId)
+                .extension(e -> e.set(visitReplyHeaders()))
+                .build();
+
+        while (!targetReplyStreams.writeStreams(begin.typeId(), begin.buffer(), begin.offset(), begin.sizeof()))
+        {
+            Thread.yield();
+        }
+
+        final EndFW end = replyEndRW.wrap(replyBuffer, 0, replyBuffer.capacity())
+                .streamId(streamId)
+                .extension(e -> e.reset())
+                .build();
+
+        while (!targetReplyStreams.writeStreams(end.typeId(), end.buffer(), end.offset(), end.sizeof()))
+        {
+            Thread.yield();
+        }
+    }
+
+    private Flyweight.Builder.Visitor visitRequestHeaders(
+        long streamId,
+        String retryAfter)
+    {
+        // a path per request, so that each poll is scheduled and sent on its own rather than subscribing to another
+        final String path = "/" + streamId;
+        return (buffer, offset, limit) ->
+            requestBeginExRW.wrap(buffer, offset, limit)
+                            .headers(hs ->
+                            {
+                                hs.item(h -> h.representation((byte) 0).name(":scheme").value("http"));
+                                hs.item(h -> h.representation((byte) 0).name(":method").value("GET"));
+                                hs.item(h -> h.representation((byte) 0).name(":path").value(path));
+                                hs.item(h -> h.representation((byte) 0).name(":authority").value("localhost:8080"));
+                                hs.item(h -> h.representation((byte) 0).name("x-retry-after").value(retryAfter));
+                                hs.item(h -> h.representation((byte) 0).name("x-poll-injected").value("x-http-cache-sync"));
+                            })
+                            .build()
+                            .sizeof();
+    }
+
+    private Flyweight.Builder.Visitor visitReplyHeaders()
+    {
+        return (buffer, offset, limit) ->
+            replyBeginExRW.wrap(buffer, offset, limit)
+                          .headers(hs ->
+                          {
+                              hs.item(h -> h.representation((byte) 0).name(":status").value("200"));
+                              hs.item(h -> h.representation((byte) 0).name("content-length").value("0"));
+                          })
+                          .build()
+                          .sizeof();
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+                .include(HttpPushPollBM.class.getSimpleName())
+                .forks(0)
+                .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,275 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.http_push.internal.bench;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.reaktivity.nukleus.http_push.internal.bench.BenchmarkSupport.REPLY_HEADERS;
+import static org.reaktivity.nukleus.http_push.internal.bench.BenchmarkSupport.REQUEST_HEADERS;
+import static org.reaktivity.nukleus.http_push.internal.bench.BenchmarkSupport.correlationIdOffset;
+import static org.reaktivity.nukleus.http_push.internal.bench.BenchmarkSupport.encodeBegin;
+import static org.reaktivity.nukleus.http_push.internal.bench.BenchmarkSupport.encodeEnd;
+import static org.reaktivity.nukleus.http_push.internal.bench.BenchmarkSupport.initialStreamId;
+import static org.reaktivity.nukleus.http_push.internal.bench.BenchmarkSupport.newConfiguration;
+import static org.reaktivity.nukleus.http_push.internal.bench.BenchmarkSupport.newReaktor;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.Random;
+
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.MessageHandler;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.reaktivity.nukleus.Configuration;
+import org.reaktivity.nukleus.http_push.internal.HttpPushController;
+import org.reaktivity.nukleus.http_push.internal.HttpPushStreams;
+import org.reaktivity.nukleus.http_push.internal.types.stream.BeginFW;
+import org.reaktivity.nukleus.http_push.internal.types.stream.EndFW;
+import org.reaktivity.reaktor.Reaktor;
+
+/**
+ * Replays upstream reply BEGINs correlated to stored requests carrying {@code x-retry-after}, so that every
+ * reply goes through the push promise path of {@code TargetOutputEstablishedStream.processBegin}.
+ * <p>
+ * Each operation writes one pre-encoded reply and waits for the client reply stream to end. The request it
+ * answers is written by the invocation setup from a frame encoded once per trial, so the benchmark thread
+ * allocates nothing and the gc profiler (see {@link #main(String[])}) reports only the nukleus.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Fork(3)
+@Warmup(iterations = 5, time = 1, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = SECONDS)
+@OutputTimeUnit(SECONDS)
+public class HttpPushPromiseBM
+{
+    private final Configuration configuration = newConfiguration(new Properties());
+    private final Reaktor reaktor = newReaktor(configuration);
+
+    private final BeginFW beginRO = new BeginFW();
+
+    private final MutableDirectBuffer requestBeginBuffer = new UnsafeBuffer(new byte[8192]);
+    private final MutableDirectBuffer requestEndBuffer = new UnsafeBuffer(new byte[64]);
+    private final MutableDirectBuffer replyBeginBuffer = new UnsafeBuffer(new byte[8192]);
+    private final MutableDirectBuffer replyEndBuffer = new UnsafeBuffer(new byte[64]);
+
+    private final MessageHandler handleRequest = this::handleRequest;
+    private final MessageHandler handleReply = this::handleReply;
+    private final MessageHandler ignoreThrottle = (t, b, o, l) -> {};
+
+    @Param({ "10", "20", "40" })
+    public int headerCount;
+
+    private HttpPushStreams sourceInputStreams;
+    private HttpPushStreams targetInputStreams;
+    private HttpPushStreams targetReplyStreams;
+    private HttpPushStreams sourceReplyStreams;
+
+    private long sourceInputRef;
+    private long targetInputRef;
+
+    private long requestId;
+    private long replyId;
+    private long correlationId;
+    private boolean requestForwarded;
+
+    private int requestBeginLength;
+    private int requestCorrelationIdOffset;
+    private int requestEndLength;
+
+    private int replyBeginLength;
+    private int replyCorrelationIdOffset;
+    private int replyEndLength;
+    private boolean replyEnded;
+
+    @Setup(Level.Trial)
+    public void reinit() throws Exception
+    {
+        final Random random = new Random();
+        final HttpPushController controller = reaktor.controller(HttpPushController.class);
+
+        this.targetInputRef = random.nextLong();
+        this.sourceInputRef = controller.routeProxy("source", 0L, "target", targetInputRef).get();
+
+        this.sourceInputStreams = controller.streams("source");
+        this.targetInputStreams = controller.streams("source", "target");
+        this.targetReplyStreams = controller.streams("target");
+
+        this.requestId = initialStreamId(random);
+        this.replyId = initialStreamId(random);
+
+        // frames are encoded here so that the benchmark thread allocates nothing while the gc profiler samples
+        this.requestBeginLength = encodeBegin(requestBeginBuffer, "source", sourceInputRef,
+                REQUEST_HEADERS, headerCount - 1, "x-retry-after", "5");
+        this.requestCorrelationIdOffset = correlationIdOffset("source");
+        this.requestEndLength = encodeEnd(requestEndBuffer);
+
+        this.replyBeginLength = encodeBegin(replyBeginBuffer, "target", 0L, REPLY_HEADERS, headerCount);
+        this.replyCorrelationIdOffset = correlationIdOffset("target");
+        this.replyEndLength = encodeEnd(replyEndBuffer);
+
+        // the client reply streams only exist once the first reply has been routed back to the source
+        prepareRequest();
+        replyWithPushPromise();
+
+        final Path sourceReplyPath = configuration.directory().resolve("source/streams/http-push#target");
+        while (!Files.exists(sourceReplyPath))
+        {
+            Thread.yield();
+        }
+        this.sourceReplyStreams = controller.streams("target", "source");
+    }
+
+    @TearDown(Level.Trial)
+    public void reset() throws Exception
+    {
+        HttpPushController controller = reaktor.controller(HttpPushController.class);
+
+        controller.unrouteProxy("source", sourceInputRef, "target", targetInputRef).get();
+
+        this.sourceInputStreams.close();
+        this.sourceInputStreams = null;
+
+        this.targetInputStreams.close();
+        this.targetInputStreams = null;
+
+        this.targetReplyStreams.close();
+        this.targetReplyStreams = null;
+
+        this.sourceReplyStreams.close();
+        this.sourceReplyStreams = null;
+
+        reaktor.close();
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareRequest() throws Exception
+    {
+        final long streamId = ++requestId;
+
+        requestBeginBuffer.putLong(BeginFW.FIELD_OFFSET_STREAM_ID, streamId);
+        requestBeginBuffer.putLong(requestCorrelationIdOffset, streamId);
+        requestEndBuffer.putLong(EndFW.FIELD_OFFSET_STREAM_ID, streamId);
+
+        while (!sourceInputStreams.writeStreams(BeginFW.TYPE_ID, requestBeginBuffer, 0, requestBeginLength))
+        {
+            Thread.yield();
+        }
+
+        while (!sourceInputStreams.writeStreams(EndFW.TYPE_ID, requestEndBuffer, 0, requestEndLength))
+        {
+            Thread.yield();
+        }
+
+        this.requestForwarded = false;
+        while (!requestForwarded)
+        {
+            if (targetInputStreams.readStreams(handleRequest) == 0)
+            {
+                Thread.yield();
+            }
+        }
+
+        sourceInputStreams.readThrottle(ignoreThrottle);
+    }
+
+    @Benchmark
+    public void replyWithPushPromise() throws Exception
+    {
+        final long streamId = ++replyId;
+
+        replyBeginBuffer.putLong(BeginFW.FIELD_OFFSET_STREAM_ID, streamId);
+        replyBeginBuffer.putLong(replyCorrelationIdOffset, correlationId);
+        replyEndBuffer.putLong(EndFW.FIELD_OFFSET_STREAM_ID, streamId);
+
+        while (!targetReplyStreams.writeStreams(BeginFW.TYPE_ID, replyBeginBuffer, 0, replyBeginLength))
+        {
+            Thread.yield();
+        }
+
+        while (!targetReplyStreams.writeStreams(EndFW.TYPE_ID, replyEndBuffer, 0, replyEndLength))
+        {
+            Thread.yield();
+        }
+
+        if (sourceReplyStreams != null)
+        {
+            this.replyEnded = false;
+            while (!replyEnded)
+            {
+                if (sourceReplyStreams.readStreams(handleReply) == 0)
+                {
+                    Thread.yield();
+                }
+            }
+        }
+    }
+
+    private void handleRequest(
+        int msgTypeId,
+        MutableDirectBuffer buffer,
+        int index,
+        int length)
+    {
+        if (msgTypeId == BeginFW.TYPE_ID)
+        {
+            beginRO.wrap(buffer, index, index + length);
+            this.correlationId = beginRO.correlationId();
+            this.requestForwarded = true;
+        }
+    }
+
+    private void handleReply(
+        int msgTypeId,
+        MutableDirectBuffer buffer,
+        int index,
+        int length)
+    {
+        if (msgTypeId == EndFW.TYPE_ID)
+        {
+            this.replyEnded = true;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+                .include(HttpPushPromiseBM.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .forks(0)
+                .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.http_push.internal.bench;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.reaktivity.nukleus.http_push.internal.bench.BenchmarkSupport.nextRef;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.reaktivity.nukleus.http_push.internal.router.RouteKind;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Fork(3)
+@Warmup(iterations = 5, time = 1, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = SECONDS)
+@OutputTimeUnit(SECONDS)
+public class RouteKindBM
+{
+    private static final int REFERENCE_COUNT = 1024;
+
+    @Param({ "INPUT", "OUTPUT_ESTABLISHED", "OUTPUT", "INPUT_ESTABLISHED", "MIXED" })
+    public String kind;
+
+    private final long[] referenceIds = new long[REFERENCE_COUNT];
+
+    private int index;
+
+    @Setup(Level.Trial)
+    public void reinit()
+    {
+        final RouteKind[] kinds = RouteKind.values();
+
+        for (int i = 0; i < REFERENCE_COUNT; i++)
+        {
+            final RouteKind routeKind = "MIXED".equals(kind) ? kinds[i % kinds.length] : RouteKind.valueOf(kind);
+            referenceIds[i] = nextRef(routeKind);
+        }
+    }
+
+    @Benchmark
+    public RouteKind match()
+    {
+        return RouteKind.match(referenceIds[index++ & (REFERENCE_COUNT - 1)]);
+    }
+
+    @Benchmark
+    public boolean valid()
+    {
+        return RouteKind.valid(referenceIds[index++ & (REFERENCE_COUNT - 1)]);
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+                .include(RouteKindBM.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .forks(0)
+                .build();
+
+        new Runner(opt).run();
+    }
+}
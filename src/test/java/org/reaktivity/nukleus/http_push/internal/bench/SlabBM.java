@@ -0,0 +1,104 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.http_push.internal.bench;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import org.agrona.MutableDirectBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.reaktivity.nukleus.http_push.internal.routable.stream.Slab;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Fork(3)
+@Warmup(iterations = 5, time = 1, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = SECONDS)
+@OutputTimeUnit(SECONDS)
+public class SlabBM
+{
+    private static final int TOTAL_CAPACITY = 1024 * 1024;
+    private static final int SLOT_CAPACITY = 1024;
+
+    @Param({ "0", "50", "90", "99" })
+    public int occupancy;
+
+    private Slab slab;
+    private long streamId;
+
+    @Setup(Level.Trial)
+    public void reinit()
+    {
+        this.slab = new Slab(TOTAL_CAPACITY, SLOT_CAPACITY);
+
+        final int totalSlots = TOTAL_CAPACITY / SLOT_CAPACITY;
+        final int occupiedSlots = totalSlots * occupancy / 100;
+        for (int i = 0; i < occupiedSlots; i++)
+        {
+            slab.acquire(++streamId);
+        }
+    }
+
+    @Benchmark
+    public int acquireAndRelease()
+    {
+        final int slot = slab.acquire(++streamId);
+        if (slot >= 0)
+        {
+            slab.release(slot);
+        }
+        return slot;
+    }
+
+    @Benchmark
+    public int acquireWriteAndRelease()
+    {
+        final int slot = slab.acquire(++streamId);
+        if (slot >= 0)
+        {
+            final MutableDirectBuffer buffer = slab.buffer(slot);
+            buffer.putLong(0, streamId);
+            slab.release(slot);
+        }
+        return slot;
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+                .include(SlabBM.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .forks(0)
+                .build();
+
+        new Runner(opt).run();
+    }
+}
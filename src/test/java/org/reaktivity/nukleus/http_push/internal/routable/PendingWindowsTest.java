@@ -0,0 +1,101 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.http_push.internal.routable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.agrona.collections.LongArrayList;
+import org.junit.Test;
+
+public class PendingWindowsTest
+{
+    private final LongArrayList drained = new LongArrayList();
+
+    @Test
+    public void shouldCoalesceUpdatesPerStream() throws Exception
+    {
+        PendingWindows windows = new PendingWindows(4);
+
+        assertEquals(10, windows.add(3L, 10));
+        assertEquals(5, windows.add(7L, 5));
+        assertEquals(30, windows.add(3L, 20));
+
+        assertEquals(2, windows.drain(this::onWindow));
+        assertEquals(4, drained.size());
+        assertEquals(3L, drained.getLong(0));
+        assertEquals(30L, drained.getLong(1));
+        assertEquals(7L, drained.getLong(2));
+        assertEquals(5L, drained.getLong(3));
+        assertTrue(windows.isEmpty());
+    }
+
+    @Test
+    public void shouldNotDrainRemovedUpdates() throws Exception
+    {
+        PendingWindows windows = new PendingWindows(4);
+        windows.add(3L, 10);
+        windows.add(7L, 5);
+
+        assertEquals(10, windows.remove(3L));
+        assertEquals(0, windows.remove(3L));
+        assertEquals(0, windows.remove(11L));
+
+        assertEquals(1, windows.drain(this::onWindow));
+        assertEquals(7L, drained.getLong(0));
+        assertEquals(5L, drained.getLong(1));
+    }
+
+    @Test
+    public void shouldAddAgainAfterRemoval() throws Exception
+    {
+        PendingWindows windows = new PendingWindows(4);
+        windows.add(3L, 10);
+        windows.remove(3L);
+
+        assertEquals(4, windows.add(3L, 4));
+        assertEquals(1, windows.drain(this::onWindow));
+        assertEquals(4L, drained.getLong(1));
+    }
+
+    @Test
+    public void shouldGrowBeyondInitialCapacity() throws Exception
+    {
+        PendingWindows windows = new PendingWindows(2);
+
+        for (long streamId = 1L; streamId <= 100L; streamId++)
+        {
+            windows.add(streamId, (int) streamId);
+        }
+        windows.add(50L, 50);
+
+        assertEquals(100, windows.drain(this::onWindow));
+        for (int i = 0; i < 100; i++)
+        {
+            final long streamId = i + 1L;
+            assertEquals(streamId, drained.getLong(2 * i));
+            assertEquals(streamId == 50L ? 100L : streamId, drained.getLong(2 * i + 1));
+        }
+    }
+
+    private void onWindow(
+        long streamId,
+        int update)
+    {
+        drained.addLong(streamId);
+        drained.addLong(update);
+    }
+}
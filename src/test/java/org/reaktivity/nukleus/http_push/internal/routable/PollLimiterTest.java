@@ -0,0 +1,191 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.http_push.internal.routable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.agrona.collections.IntArrayList;
+import org.agrona.collections.LongArrayList;
+import org.junit.Test;
+
+public class PollLimiterTest
+{
+    private static final long TIMEOUT_MILLIS = 1000L;
+
+    private final IntArrayList sent = new IntArrayList();
+    private final LongArrayList released = new LongArrayList();
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNonPositiveMaximumOutstanding()
+    {
+        new PollLimiter(0, 1, TIMEOUT_MILLIS, released::addLong);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNonPositiveTimeout()
+    {
+        new PollLimiter(1, 1, 0L, released::addLong);
+    }
+
+    @Test
+    public void shouldSendPollsWithinBounds() throws Exception
+    {
+        PollLimiter limiter = new PollLimiter(2, 4, TIMEOUT_MILLIS, released::addLong);
+
+        limiter.submit(poll(limiter, 1));
+        limiter.submit(poll(limiter, 2));
+
+        assertEquals(2, sent.size());
+        assertEquals(2, limiter.outstanding());
+        assertEquals(0, limiter.queued());
+    }
+
+    @Test
+    public void shouldQueuePollsBeyondMaximumOutstandingUntilReleased() throws Exception
+    {
+        PollLimiter limiter = new PollLimiter(2, 4, TIMEOUT_MILLIS, released::addLong);
+
+        for (int i = 1; i <= 4; i++)
+        {
+            limiter.submit(poll(limiter, i));
+        }
+        assertEquals(2, sent.size());
+        assertEquals(2, limiter.queued());
+        assertFalse(limiter.sendsNow());
+
+        assertTrue(limiter.release(1L));
+        assertEquals(1, limiter.process(0L));
+        assertEquals(3, sent.getInt(2));
+
+        assertTrue(limiter.release(2L));
+        assertTrue(limiter.release(3L));
+        assertEquals(1, limiter.process(0L));
+        assertEquals(4, sent.getInt(3));
+        assertEquals(0, limiter.queued());
+        assertEquals(3, released.size());
+    }
+
+    @Test
+    public void shouldQueuePollsBeyondMaximumPerCycleUntilNextCycle() throws Exception
+    {
+        PollLimiter limiter = new PollLimiter(16, 2, TIMEOUT_MILLIS, released::addLong);
+
+        for (int i = 1; i <= 5; i++)
+        {
+            limiter.submit(poll(limiter, i));
+        }
+        assertEquals(2, sent.size());
+
+        assertEquals(2, limiter.process(0L));
+        assertEquals(1, limiter.process(0L));
+        assertEquals(0, limiter.process(0L));
+
+        for (int i = 0; i < 5; i++)
+        {
+            assertEquals(i + 1, sent.getInt(i));
+        }
+    }
+
+    @Test
+    public void shouldNotOvertakeQueuedPolls() throws Exception
+    {
+        PollLimiter limiter = new PollLimiter(1, 4, TIMEOUT_MILLIS, released::addLong);
+
+        limiter.submit(poll(limiter, 1));
+        limiter.submit(poll(limiter, 2));
+        limiter.release(1L);
+        limiter.submit(poll(limiter, 3));
+        assertEquals(1, sent.size());
+
+        limiter.process(0L);
+        assertEquals(2, sent.getInt(1));
+    }
+
+    @Test
+    public void shouldCancelQueuedPollOnly() throws Exception
+    {
+        PollLimiter limiter = new PollLimiter(1, 4, TIMEOUT_MILLIS, released::addLong);
+
+        Runnable first = poll(limiter, 1);
+        Runnable second = poll(limiter, 2);
+        limiter.submit(first);
+        limiter.submit(second);
+
+        assertFalse(limiter.cancel(first));
+        assertTrue(limiter.cancel(second));
+        assertEquals(0, limiter.queued());
+
+        limiter.release(1L);
+        assertEquals(0, limiter.process(0L));
+        assertEquals(1, sent.size());
+    }
+
+    @Test
+    public void shouldReleasePollOnlyOnce() throws Exception
+    {
+        PollLimiter limiter = new PollLimiter(1, 4, TIMEOUT_MILLIS, released::addLong);
+
+        limiter.submit(poll(limiter, 1));
+
+        assertTrue(limiter.release(1L));
+        assertFalse(limiter.release(1L));
+        assertEquals(0, limiter.outstanding());
+        assertEquals(1, released.size());
+    }
+
+    @Test
+    public void shouldNotCountPollWhoseRequestWasNotWritten() throws Exception
+    {
+        PollLimiter limiter = new PollLimiter(1, 4, TIMEOUT_MILLIS, released::addLong);
+
+        limiter.submit(() -> sent.addInt(1));
+        limiter.submit(poll(limiter, 2));
+
+        assertEquals(2, sent.size());
+        assertEquals(1, limiter.outstanding());
+    }
+
+    @Test
+    public void shouldReleasePollsTimedOut() throws Exception
+    {
+        PollLimiter limiter = new PollLimiter(1, 4, TIMEOUT_MILLIS, released::addLong);
+
+        limiter.submit(poll(limiter, 1));
+        limiter.submit(poll(limiter, 2));
+
+        assertEquals(0, limiter.process(TIMEOUT_MILLIS - 1));
+        assertEquals(1, limiter.outstanding());
+
+        // timed out, then the queued poll is sent
+        assertEquals(2, limiter.process(TIMEOUT_MILLIS));
+        assertEquals(1L, released.getLong(0));
+        assertEquals(2, sent.getInt(1));
+        assertFalse(limiter.release(1L));
+    }
+
+    private Runnable poll(
+        PollLimiter limiter,
+        int id)
+    {
+        return () ->
+        {
+            sent.addInt(id);
+            limiter.onSent(id, 0L);
+        };
+    }
+}
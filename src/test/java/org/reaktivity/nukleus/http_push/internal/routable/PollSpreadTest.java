@@ -0,0 +1,109 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.http_push.internal.routable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.agrona.collections.Long2LongHashMap;
+import org.junit.Test;
+
+public class PollSpreadTest
+{
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectJitterAboveOneHundredPercent()
+    {
+        new PollSpread(101, 100L, 300000L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNonPositiveGranularity()
+    {
+        new PollSpread(10, 0L, 300000L);
+    }
+
+    @Test
+    public void shouldPollAtRequestedTimeWithoutJitter() throws Exception
+    {
+        PollSpread spread = new PollSpread(0, 100L, 300000L);
+
+        assertEquals(15000L, spread.pollAt(10000L, 15000L));
+    }
+
+    @Test
+    public void shouldPollAtRequestedTimeWhenDue() throws Exception
+    {
+        PollSpread spread = new PollSpread(10, 100L, 300000L);
+
+        assertEquals(10000L, spread.pollAt(10000L, 10000L));
+    }
+
+    @Test
+    public void shouldPollWithinJitterBound() throws Exception
+    {
+        PollSpread spread = new PollSpread(10, 100L, 300000L);
+
+        for (int i = 0; i < 1000; i++)
+        {
+            long pollAt = spread.pollAt(10000L, 20000L);
+            assertTrue(pollAt >= 19000L && pollAt <= 21000L);
+        }
+    }
+
+    @Test
+    public void shouldSpreadPollsRequestedTogether() throws Exception
+    {
+        PollSpread spread = new PollSpread(10, 100L, 300000L);
+        Long2LongHashMap pollsPerBucket = new Long2LongHashMap(0L);
+
+        for (int i = 0; i < 200; i++)
+        {
+            long bucket = spread.pollAt(10000L, 20000L) / 100L;
+            pollsPerBucket.put(bucket, pollsPerBucket.get(bucket) + 1);
+        }
+
+        // 200 polls over the 20 buckets of +/- 1 second around the requested time
+        assertTrue(pollsPerBucket.size() >= 16);
+        pollsPerBucket.values().forEach(polls -> assertTrue(polls <= 20));
+    }
+
+    @Test
+    public void shouldSpreadPollsRequestedAtMaximumInterval() throws Exception
+    {
+        PollSpread spread = new PollSpread(10, 100L, 300000L);
+        Long2LongHashMap pollsPerBucket = new Long2LongHashMap(0L);
+
+        for (int i = 0; i < 600; i++)
+        {
+            // interleaved with polls 1024 buckets earlier, which would share buckets in a smaller ring
+            spread.pollAt(0L, 300000L - 102400L);
+            long bucket = spread.pollAt(0L, 300000L) / 100L;
+            pollsPerBucket.put(bucket, pollsPerBucket.get(bucket) + 1);
+        }
+
+        // 600 polls over the 600 buckets of +/- 30 seconds around the requested time
+        assertTrue(pollsPerBucket.size() >= 400);
+        pollsPerBucket.values().forEach(polls -> assertTrue(polls <= 3));
+    }
+
+    @Test
+    public void shouldPollAtRequestedTimeBeyondMaximumInterval() throws Exception
+    {
+        PollSpread spread = new PollSpread(10, 100L, 1000L);
+
+        assertEquals(10000L, spread.pollAt(0L, 10000L));
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.http_push.internal.routable.stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.BitSet;
+import java.util.concurrent.CountDownLatch;
+
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+
+public class ConcurrentSlabTest
+{
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectSlotCapacityNotPowerOfTwo()
+    {
+        new ConcurrentSlab(1024, 100);
+    }
+
+    @Test
+    public void acquireShouldReportOutOfMemory() throws Exception
+    {
+        ConcurrentSlab slab = new ConcurrentSlab(256, 16);
+        for (int i = 0; i < 16; i++)
+        {
+            int slot = slab.acquire(111 + i);
+            assertTrue(slot >= 0 && slot < 16);
+        }
+        assertEquals(0, slab.availableSlots());
+        assertEquals(Slab.NO_SLOT, slab.acquire(127));
+    }
+
+    @Test
+    public void releaseShouldMakeSlotAvailableForReuse() throws Exception
+    {
+        ConcurrentSlab slab = new ConcurrentSlab(128 * 1024, 1024);
+        int slot = 0;
+        for (int i = 0; i < 128; i++)
+        {
+            slot = slab.acquire(111 + i);
+            assertTrue(slot >= 0);
+        }
+        assertEquals(Slab.NO_SLOT, slab.acquire(239));
+        slab.release(slot);
+        assertEquals(slot, slab.acquire(239));
+    }
+
+    @Test
+    public void buffersOfDifferentSlotsShouldBeHeldAtOnce() throws Exception
+    {
+        ConcurrentSlab slab = new ConcurrentSlab(256, 16);
+        int slot1 = slab.acquire(111);
+        int slot2 = slab.acquire(112);
+        assertNotEquals(slot1, slot2);
+
+        MutableDirectBuffer buffer1 = slab.buffer(slot1, new UnsafeBuffer(new byte[0]));
+        MutableDirectBuffer buffer2 = slab.buffer(slot2, new UnsafeBuffer(new byte[0]));
+        buffer1.putInt(0, 111);
+        buffer2.putInt(0, 112);
+
+        assertEquals(16, buffer1.capacity());
+        assertEquals(111, buffer1.getInt(0));
+        assertEquals(112, buffer2.getInt(0));
+    }
+
+    @Test
+    public void acquireShouldAllocateDistinctSlotsAcrossThreads() throws Exception
+    {
+        final int threadCount = 4;
+        final int slotsPerThread = 256;
+        final ConcurrentSlab slab = new ConcurrentSlab(threadCount * slotsPerThread * 64, 64);
+        final int[][] slots = new int[threadCount][slotsPerThread];
+        final CountDownLatch start = new CountDownLatch(1);
+
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++)
+        {
+            final int[] acquired = slots[t];
+            final long firstStreamId = t * slotsPerThread;
+            threads[t] = new Thread(() ->
+            {
+                try
+                {
+                    start.await();
+                }
+                catch (InterruptedException ex)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < slotsPerThread; i++)
+                {
+                    // churn a slot before keeping one, so releases race with acquires too
+                    slab.release(slab.acquire(firstStreamId + i));
+                    acquired[i] = slab.acquire(firstStreamId + i);
+                }
+            });
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        BitSet seen = new BitSet();
+        for (int[] acquired : slots)
+        {
+            for (int slot : acquired)
+            {
+                assertTrue(slot >= 0);
+                assertTrue(!seen.get(slot));
+                seen.set(slot);
+            }
+        }
+        assertEquals(0, slab.availableSlots());
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.http_push.internal.routable.stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.reaktivity.nukleus.http_push.internal.layouts.StateLayout;
+
+public class PendingPollsTest
+{
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldRecordAndClearPendingPolls() throws Exception
+    {
+        PendingPolls polls = new PendingPolls(new UnsafeBuffer(new byte[4 * PendingPolls.RECORD_LENGTH]));
+
+        polls.record(1, 1000L, "source", 7L, "target", 42L, 128);
+        polls.record(3, 2000L, "source", 8L, "other", 43L, 256);
+        polls.clear(1);
+
+        List<String> recorded = new ArrayList<>();
+        polls.forEach((slot, source, sourceRef, target, targetRef, requestSize, pollAt) ->
+            recorded.add(String.format("%d %s %d %s %d %d %d", slot, source, sourceRef, target, targetRef, requestSize,
+                    pollAt)));
+
+        assertEquals(1, recorded.size());
+        assertEquals("3 source 8 other 43 256 2000", recorded.get(0));
+    }
+
+    @Test
+    public void shouldNotRecordWithoutBuffer() throws Exception
+    {
+        PendingPolls polls = new PendingPolls(new UnsafeBuffer(new byte[0]));
+
+        polls.record(0, 1000L, "source", 7L, "target", 42L, 128);
+
+        polls.forEach((slot, source, sourceRef, target, targetRef, requestSize, pollAt) -> { throw new AssertionError(); });
+    }
+
+    @Test
+    public void shouldRecoverSlabAndPendingPollsFromStateFile() throws Exception
+    {
+        Path statePath = folder.getRoot().toPath().resolve("http-push/state");
+
+        StateLayout state = newStateLayout(statePath, 4 * 1024);
+        assertFalse(state.recovered());
+        state.slabBuffer().putLong(1024, 0x0123456789abcdefL);
+        new PendingPolls(state.pollsBuffer()).record(1, 1000L, "source", 7L, "target", 42L, 8);
+        state.close();
+
+        state = newStateLayout(statePath, 4 * 1024);
+        assertTrue(state.recovered());
+
+        Slab slab = new Slab(state.slabBuffer(), 1024);
+        List<Integer> slots = new ArrayList<>();
+        new PendingPolls(state.pollsBuffer()).forEach((slot, source, sourceRef, target, targetRef, requestSize, pollAt) ->
+        {
+            slab.reserve(slot);
+            slots.add(slot);
+        });
+
+        assertEquals(1, slots.size());
+        assertEquals(1, slots.get(0).intValue());
+        assertEquals(0x0123456789abcdefL, slab.buffer(1).getLong(0));
+        state.close();
+    }
+
+    @Test
+    public void shouldNotRecoverStateFileWithDifferentCapacity() throws Exception
+    {
+        Path statePath = folder.getRoot().toPath().resolve("http-push/state");
+
+        StateLayout state = newStateLayout(statePath, 4 * 1024);
+        new PendingPolls(state.pollsBuffer()).record(1, 1000L, "source", 7L, "target", 42L, 8);
+        state.close();
+
+        state = newStateLayout(statePath, 8 * 1024);
+        assertFalse(state.recovered());
+        new PendingPolls(state.pollsBuffer()).forEach((slot, source, sourceRef, target, targetRef, requestSize, pollAt) ->
+        {
+            throw new AssertionError();
+        });
+        state.close();
+    }
+
+    private static StateLayout newStateLayout(
+        Path statePath,
+        int slabCapacity)
+    {
+        return new StateLayout.Builder()
+                .statePath(statePath)
+                .slabCapacity(slabCapacity)
+                .slotCapacity(1024)
+                .pollsCapacity(slabCapacity / 1024 * PendingPolls.RECORD_LENGTH)
+                .build();
+    }
+}
@@ -19,7 +19,13 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.nio.ByteBuffer;
+
 import org.agrona.MutableDirectBuffer;
+import org.agrona.collections.Hashing;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.status.AtomicCounter;
+import org.agrona.concurrent.status.CountersManager;
 import org.junit.Test;
 
 public class SlabTest
@@ -122,5 +128,115 @@ public class SlabTest
         assertNotEquals(Slab.NO_SLOT, slot);
     }
 
-}
+    @Test
+    public void reserveShouldPreventSlotBeingAcquired() throws Exception
+    {
+        Slab slab = new Slab(new UnsafeBuffer(new byte[4 * 1024]), 1024);
+        int slot = Hashing.hash(111, 3);
+        slab.reserve(slot);
+        assertNotEquals(slot, slab.acquire(111));
+        slab.acquire(112);
+        slab.acquire(113);
+        assertEquals(Slab.NO_SLOT, slab.acquire(114));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectSpillCapacityNotPowerOfTwo()
+    {
+        new Slab(directBuffer(1024), directBuffer(1000), 256);
+    }
+
+    @Test
+    public void acquireShouldSpillOverWhenMemoryIsFull() throws Exception
+    {
+        Slab slab = new Slab(directBuffer(64), directBuffer(256), 16);
+        assertEquals(20, slab.totalSlots());
+        int i;
+        for (i = 0; i < 20; i++)
+        {
+            int slot = slab.acquire(111 + i);
+            assertTrue(slot >= 0 && slot < 20);
+            slab.buffer(slot).putInt(0, 111 + i);
+        }
+        assertEquals(0, slab.availableSlots());
+        assertEquals(Slab.NO_SLOT, slab.acquire(111 + i));
+    }
+
+    @Test
+    public void bufferShouldMoveSpilledSlotIntoMemoryOnceAvailable() throws Exception
+    {
+        Slab slab = new Slab(directBuffer(16), directBuffer(64), 16);
+        int slot1 = slab.acquire(111);
+        int slot2 = slab.acquire(112);
+        slab.buffer(slot2).putInt(0, 112);
+        slab.release(slot1);
+
+        assertEquals(112, slab.buffer(slot2).getInt(0));
+
+        // slot2 now holds the only memory slot, so the next slot spills again
+        int slot3 = slab.acquire(113);
+        assertNotEquals(slot2, slot3);
+        slab.buffer(slot3).putInt(0, 113);
+        assertEquals(112, slab.buffer(slot2).getInt(0));
+        assertEquals(113, slab.buffer(slot3).getInt(0));
+    }
+
+    @Test
+    public void releaseShouldMakeSpilledSlotAvailableForReuse() throws Exception
+    {
+        Slab slab = new Slab(directBuffer(16), directBuffer(16), 16);
+        int slot1 = slab.acquire(111);
+        int slot2 = slab.acquire(112);
+        assertEquals(Slab.NO_SLOT, slab.acquire(113));
+        slab.release(slot2);
+        assertEquals(1, slab.availableSlots());
+        assertNotEquals(slot1, slab.acquire(113));
+        assertEquals(Slab.NO_SLOT, slab.acquire(114));
+    }
+
+    @Test
+    public void shouldTrackHighWaterMarkAndAcquireFailures() throws Exception
+    {
+        Slab slab = new Slab(64, 16);
+        int slot1 = slab.acquire(111);
+        int slot2 = slab.acquire(112);
+        slab.release(slot1);
+        slab.release(slot2);
+        slab.acquire(113);
+        for (int i = 0; i < 4; i++)
+        {
+            slab.acquire(114 + i);
+        }
+
+        assertEquals(4, slab.highWaterMark());
+        assertEquals(1, slab.acquireFailures());
+    }
 
+    @Test
+    public void storedShouldTrackBytesAndRouteSlotsUntilRelease() throws Exception
+    {
+        CountersManager countersManager =
+                new CountersManager(new UnsafeBuffer(new byte[4 * 1024]), new UnsafeBuffer(new byte[1024]));
+        AtomicCounter routeSlots = countersManager.newCounter("slabSlots.source.1");
+        Slab slab = new Slab(1024, 256);
+        int slot1 = slab.acquire(111);
+        int slot2 = slab.acquire(112);
+        slab.stored(slot1, 100, routeSlots);
+        slab.stored(slot2, 50, routeSlots);
+
+        assertEquals(150, slab.storedBytes());
+        assertEquals(2, routeSlots.get());
+
+        slab.release(slot1);
+
+        assertEquals(50, slab.storedBytes());
+        assertEquals(1, routeSlots.get());
+    }
+
+    private static MutableDirectBuffer directBuffer(
+        int capacity)
+    {
+        return new UnsafeBuffer(ByteBuffer.allocateDirect(capacity));
+    }
+
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.http_push.internal.router;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.reaktivity.nukleus.http_push.internal.routable.stream.Slab;
+
+public class LoadFeedbackTest
+{
+    private final Slab slab = new Slab(16 * 1024, 1024);
+    private final LoadFeedback feedback = new LoadFeedback(slab, 4, 100, 1000);
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectFactorLessThanOne()
+    {
+        new LoadFeedback(slab, 0.5, 100, 1000);
+    }
+
+    @Test
+    public void shouldKeepRetryAfterWithoutPressure() throws Exception
+    {
+        assertEquals(5000, feedback.retryAfter(5000, 0L));
+        assertEquals(0, feedback.retryAfter(0, 0L));
+    }
+
+    @Test
+    public void shouldStretchRetryAfterWhenSlabIsFull() throws Exception
+    {
+        for (int i = 0; i < 16; i++)
+        {
+            slab.acquire(i);
+        }
+
+        assertEquals(20000, feedback.retryAfter(5000, 0L));
+        assertEquals(4000, feedback.retryAfter(0, 0L));
+    }
+
+    @Test
+    public void shouldStretchRetryAfterWithScheduledPolls() throws Exception
+    {
+        for (int i = 0; i < 50; i++)
+        {
+            feedback.onPollScheduled();
+        }
+
+        assertEquals(25000, feedback.retryAfter(10000, 0L));
+    }
+
+    @Test
+    public void shouldStretchRetryAfterWithUpstreamLatencyAndRecover() throws Exception
+    {
+        for (int i = 0; i < 64; i++)
+        {
+            feedback.onPollSent(i, 0L);
+            feedback.onPollReplied(i, 3000L);
+        }
+        assertEquals(40000, feedback.retryAfter(10000, 0L));
+
+        for (int i = 0; i < 64; i++)
+        {
+            feedback.onPollSent(i, 0L);
+            feedback.onPollReplied(i, 10L);
+        }
+        assertEquals(40000, feedback.retryAfter(10000, 50L));
+        assertEquals(10000, feedback.retryAfter(10000, 100L));
+    }
+
+    @Test
+    public void shouldForgetReleasedPolls() throws Exception
+    {
+        for (int i = 0; i < 64; i++)
+        {
+            feedback.onPollSent(i, 0L);
+            feedback.onPollReleased(i);
+            feedback.onPollReplied(i, 3000L);
+        }
+
+        assertEquals(10000, feedback.retryAfter(10000, 0L));
+    }
+
+    @Test
+    public void shouldStretchRetryAfterAfterWriteFailuresUntilTheyFade() throws Exception
+    {
+        for (int i = 0; i < 8; i++)
+        {
+            feedback.onWriteFailed();
+        }
+        assertEquals(40000, feedback.retryAfter(10000, 0L));
+
+        long now = 0L;
+        for (int i = 0; i < 20; i++)
+        {
+            now += 100L;
+            feedback.factor(now);
+        }
+        assertEquals(10000, feedback.retryAfter(10000, now));
+    }
+}
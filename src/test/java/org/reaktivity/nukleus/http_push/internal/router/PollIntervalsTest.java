@@ -0,0 +1,102 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.http_push.internal.router;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.reaktivity.nukleus.http_push.internal.router.PollIntervals.FINGERPRINT_SEED;
+import static org.reaktivity.nukleus.http_push.internal.router.Subscriptions.NO_KEY;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+
+public class PollIntervalsTest
+{
+    private final PollIntervals intervals = new PollIntervals(16, 2, 60);
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectCapacityNotPowerOfTwo()
+    {
+        new PollIntervals(10, 1, 60);
+    }
+
+    @Test
+    public void shouldKeepRequestedIntervalWhenDisabled() throws Exception
+    {
+        PollIntervals disabled = new PollIntervals(0, 2, 60);
+        disabled.observe(1L, 1L, 5);
+        disabled.observe(1L, 1L, 5);
+
+        assertFalse(disabled.enabled());
+        assertEquals(100, disabled.interval(1L, 100));
+    }
+
+    @Test
+    public void shouldBoundRequestedIntervalOfUnobservedResource() throws Exception
+    {
+        assertEquals(5, intervals.interval(1L, 5));
+        assertEquals(2, intervals.interval(1L, 0));
+        assertEquals(60, intervals.interval(1L, 100));
+        assertEquals(0, intervals.interval(NO_KEY, 0));
+    }
+
+    @Test
+    public void shouldStretchIntervalWhileResponsesAreUnchanged() throws Exception
+    {
+        intervals.observe(1L, 42L, 4);
+        assertEquals(4, intervals.interval(1L, 4));
+
+        intervals.observe(1L, 42L, 4);
+        assertEquals(6, intervals.interval(1L, 4));
+
+        intervals.observe(1L, 42L, 4);
+        assertEquals(9, intervals.interval(1L, 4));
+
+        for (int i = 0; i < 10; i++)
+        {
+            intervals.observe(1L, 42L, 4);
+        }
+        assertEquals(60, intervals.interval(1L, 4));
+    }
+
+    @Test
+    public void shouldShrinkIntervalWhenResponsesChange() throws Exception
+    {
+        intervals.observe(1L, 42L, 16);
+        intervals.observe(1L, 43L, 16);
+        assertEquals(8, intervals.interval(1L, 16));
+
+        intervals.observe(1L, 44L, 16);
+        intervals.observe(1L, 45L, 16);
+        intervals.observe(1L, 46L, 16);
+        assertEquals(2, intervals.interval(1L, 16));
+    }
+
+    @Test
+    public void shouldFingerprintContent() throws Exception
+    {
+        UnsafeBuffer etag1 = new UnsafeBuffer("\"abc\"".getBytes(UTF_8));
+        UnsafeBuffer etag2 = new UnsafeBuffer("\"abd\"".getBytes(UTF_8));
+
+        long fingerprint1 = PollIntervals.fingerprint(FINGERPRINT_SEED, etag1, 0, etag1.capacity());
+        long fingerprint2 = PollIntervals.fingerprint(FINGERPRINT_SEED, etag2, 0, etag2.capacity());
+
+        assertEquals(fingerprint1, PollIntervals.fingerprint(FINGERPRINT_SEED, etag1, 0, etag1.capacity()));
+        assertNotEquals(fingerprint1, fingerprint2);
+    }
+}
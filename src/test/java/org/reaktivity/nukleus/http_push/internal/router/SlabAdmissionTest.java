@@ -0,0 +1,133 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.http_push.internal.router;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.status.AtomicCounter;
+import org.agrona.concurrent.status.CountersManager;
+import org.junit.Test;
+import org.reaktivity.nukleus.http_push.internal.routable.stream.Slab;
+
+public class SlabAdmissionTest
+{
+    private final CountersManager countersManager =
+            new CountersManager(new UnsafeBuffer(new byte[16 * 1024]), new UnsafeBuffer(new byte[1024]));
+    private final AtomicCounter hits = countersManager.newCounter("slabHits");
+    private final AtomicCounter admits = countersManager.newCounter("slabAdmits");
+    private final AtomicCounter evicts = countersManager.newCounter("slabEvicts");
+
+    private final Slab slab = new Slab(2 * 1024, 1024);
+    private final SlabAdmission admission = new SlabAdmission(slab, hits, admits, evicts);
+
+    @Test
+    public void shouldAdmitWhileSlotsAreFree() throws Exception
+    {
+        assertNotEquals(Slab.NO_SLOT, admission.acquire(1L, 11L));
+        assertNotEquals(Slab.NO_SLOT, admission.acquire(2L, 12L));
+
+        assertEquals(2, admits.get());
+        assertEquals(0, evicts.get());
+    }
+
+    @Test
+    public void shouldNotCountRequestsWithoutKey() throws Exception
+    {
+        assertNotEquals(Slab.NO_SLOT, admission.acquire(1L, Subscriptions.NO_KEY));
+
+        assertEquals(0, admits.get());
+    }
+
+    @Test
+    public void shouldRejectResourceNoMoreFrequentThanOccupants() throws Exception
+    {
+        fill();
+
+        assertEquals(Slab.NO_SLOT, admission.acquire(3L, 13L));
+        assertEquals(0, evicts.get());
+    }
+
+    @Test
+    public void shouldEvictLeastFrequentOccupantForMoreFrequentResource() throws Exception
+    {
+        admission.onHit(12L);
+        final int[] evicted = fill();
+
+        assertEquals(Slab.NO_SLOT, admission.acquire(3L, 13L));
+        assertNotEquals(Slab.NO_SLOT, admission.acquire(4L, 13L));
+
+        assertEquals(1, evicted[0]);
+        assertEquals(0, evicted[1]);
+        assertEquals(1, evicts.get());
+        assertEquals(3, admits.get());
+        assertEquals(1, hits.get());
+    }
+
+    @Test
+    public void shouldNotEvictVacatedSlot() throws Exception
+    {
+        final int slot1 = admission.acquire(1L, 11L);
+        final int slot2 = admission.acquire(2L, 12L);
+        admission.occupy(slot1, 11L, SlabAdmissionTest::notEvictable);
+        admission.occupy(slot2, 12L, SlabAdmissionTest::notEvictable);
+        admission.vacate(slot1);
+        admission.vacate(slot2);
+
+        admission.acquire(3L, 13L);
+        assertEquals(Slab.NO_SLOT, admission.acquire(4L, 13L));
+        assertEquals(0, evicts.get());
+    }
+
+    @Test
+    public void shouldKeepOccupantThatCannotBeEvicted() throws Exception
+    {
+        final int slot = admission.acquire(1L, 11L);
+        admission.acquire(2L, 12L);
+        admission.occupy(slot, 11L, () -> false);
+
+        admission.acquire(3L, 13L);
+        assertEquals(Slab.NO_SLOT, admission.acquire(4L, 13L));
+        assertEquals(0, slab.availableSlots());
+        assertEquals(0, evicts.get());
+    }
+
+    private static boolean notEvictable()
+    {
+        throw new AssertionError("evicted a vacated slot");
+    }
+
+    private int[] fill()
+    {
+        final int[] evicted = new int[2];
+        final int slot1 = admission.acquire(1L, 11L);
+        final int slot2 = admission.acquire(2L, 12L);
+        admission.occupy(slot1, 11L, () ->
+        {
+            evicted[0]++;
+            slab.release(slot1);
+            return true;
+        });
+        admission.occupy(slot2, 12L, () ->
+        {
+            evicted[1]++;
+            slab.release(slot2);
+            return true;
+        });
+        return evicted;
+    }
+}
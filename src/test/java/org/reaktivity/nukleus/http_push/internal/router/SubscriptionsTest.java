@@ -0,0 +1,211 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.http_push.internal.router;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.reaktivity.nukleus.http_push.internal.router.Subscriptions.NO_KEY;
+
+import org.agrona.MutableDirectBuffer;
+import org.agrona.collections.LongArrayList;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+import org.reaktivity.nukleus.http_push.internal.routable.stream.Slab;
+import org.reaktivity.nukleus.http_push.internal.routable.stream.StoredHeaders;
+import org.reaktivity.nukleus.http_push.internal.types.HttpHeaderFW;
+import org.reaktivity.nukleus.http_push.internal.types.ListFW;
+import org.reaktivity.nukleus.http_push.internal.types.stream.HttpBeginExFW;
+
+public class SubscriptionsTest
+{
+    private static final long SOURCE_REF = 1L;
+    private static final String TARGET = "target";
+    private static final long TARGET_REF = 2L;
+
+    private final Slab slab = new Slab(16 * 1024, 1024);
+    private final StoredHeaders storedHeaders = new StoredHeaders(slab, 1024, true);
+    private final Subscriptions subscriptions = new Subscriptions(storedHeaders);
+
+    @Test
+    public void shouldKeySameResourceRegardlessOfHeaderOrder() throws Exception
+    {
+        long key1 = subscriptions.resourceKey(headers(":authority", "example.com", ":path", "/a", "user-agent", "x"));
+        long key2 = subscriptions.resourceKey(headers("user-agent", "y", ":path", "/a", ":authority", "example.com"));
+
+        assertNotEquals(NO_KEY, key1);
+        assertEquals(key1, key2);
+    }
+
+    @Test
+    public void shouldKeyDifferentResourcesDifferently() throws Exception
+    {
+        long key1 = subscriptions.resourceKey(headers(":authority", "example.com", ":path", "/a"));
+        long key2 = subscriptions.resourceKey(headers(":authority", "example.com", ":path", "/b"));
+        long key3 = subscriptions.resourceKey(headers(":authority", "example.com", ":path", "/a", "authorization", "x"));
+
+        assertNotEquals(key1, key2);
+        assertNotEquals(key1, key3);
+    }
+
+    @Test
+    public void shouldNotKeyResourceWithoutPath() throws Exception
+    {
+        assertEquals(NO_KEY, subscriptions.resourceKey(headers(":authority", "example.com")));
+    }
+
+    @Test
+    public void shouldNotSubscribeWithoutLeader() throws Exception
+    {
+        ListFW<HttpHeaderFW> headers = headers(":authority", "example.com", ":path", "/a");
+        long key = subscriptions.resourceKey(headers);
+
+        assertFalse(subscriptions.subscribe(key, SOURCE_REF, TARGET, TARGET_REF, headers, 1L, 0L, 0L));
+    }
+
+    @Test
+    public void shouldFanOutToSubscribersOnce() throws Exception
+    {
+        ListFW<HttpHeaderFW> headers = headers(":authority", "example.com", ":path", "/a");
+        long key = subscriptions.resourceKey(headers);
+
+        assertTrue(lead(key, headers, 0L, 1000L));
+        assertTrue(subscriptions.subscribe(key, SOURCE_REF, TARGET, TARGET_REF, headers, 11L, 0L, 0L));
+        assertTrue(subscriptions.subscribe(key, SOURCE_REF, TARGET, TARGET_REF, headers, 12L, 0L, 0L));
+        assertEquals(2, subscriptions.subscriberCount(key));
+
+        LongArrayList subscribers = new LongArrayList();
+        assertEquals(2, subscriptions.fanOut(key, subscribers::addLong));
+        assertEquals(11L, subscribers.getLong(0));
+        assertEquals(12L, subscribers.getLong(1));
+
+        assertEquals(0, subscriptions.fanOut(key, subscribers::addLong));
+        assertFalse(subscriptions.subscribe(key, SOURCE_REF, TARGET, TARGET_REF, headers, 13L, 0L, 0L));
+    }
+
+    @Test
+    public void shouldNotSubscribePollDueBeforeLeader() throws Exception
+    {
+        ListFW<HttpHeaderFW> headers = headers(":authority", "example.com", ":path", "/a");
+        long key = subscriptions.resourceKey(headers);
+
+        int slot = slab.acquire(1L);
+        int size = storedHeaders.store(slot, headers, null);
+        assertTrue(subscriptions.lead(key, SOURCE_REF, TARGET, TARGET_REF, headers, slot, size, 0L, 86400000L, 86430000L));
+
+        assertFalse(subscriptions.subscribe(key, SOURCE_REF, TARGET, TARGET_REF, headers, 11L, 0L, 0L));
+        assertTrue(subscriptions.subscribe(key, SOURCE_REF, TARGET, TARGET_REF, headers, 12L, 0L, 86400000L));
+        assertEquals(1, subscriptions.subscriberCount(key));
+    }
+
+    @Test
+    public void shouldNotSubscribeToLiveLeaderForOtherResource() throws Exception
+    {
+        ListFW<HttpHeaderFW> leader = headers(":authority", "example.com", ":path", "/a", "cookie", "a=1");
+        long key = subscriptions.resourceKey(leader);
+        assertTrue(lead(key, leader, 0L, 1000L));
+
+        ListFW<HttpHeaderFW> other = headers(":authority", "example.com", ":path", "/a", "cookie", "a=2");
+
+        assertFalse(subscriptions.subscribe(key, SOURCE_REF, TARGET, TARGET_REF, other, 11L, 0L, 0L));
+        assertFalse(lead(key, other, 0L, 1000L));
+    }
+
+    @Test
+    public void shouldNotSubscribeToLeaderRoutedDifferently() throws Exception
+    {
+        ListFW<HttpHeaderFW> headers = headers(":authority", "example.com", ":path", "/a");
+        long resourceKey = subscriptions.resourceKey(headers);
+        long key = subscriptions.subscriptionKey(resourceKey, SOURCE_REF, TARGET, TARGET_REF);
+
+        assertNotEquals(key, subscriptions.subscriptionKey(resourceKey, SOURCE_REF + 1, TARGET, TARGET_REF));
+        assertNotEquals(key, subscriptions.subscriptionKey(resourceKey, SOURCE_REF, "other", TARGET_REF));
+        assertNotEquals(key, subscriptions.subscriptionKey(resourceKey, SOURCE_REF, TARGET, TARGET_REF + 1));
+
+        assertTrue(lead(key, headers, 0L, 1000L));
+
+        assertFalse(subscriptions.subscribe(key, SOURCE_REF + 1, TARGET, TARGET_REF, headers, 11L, 0L, 0L));
+        assertFalse(subscriptions.subscribe(key, SOURCE_REF, "other", TARGET_REF, headers, 12L, 0L, 0L));
+        assertFalse(subscriptions.subscribe(key, SOURCE_REF, TARGET, TARGET_REF + 1, headers, 13L, 0L, 0L));
+        assertTrue(subscriptions.subscribe(key, SOURCE_REF, TARGET, TARGET_REF, headers, 14L, 0L, 0L));
+    }
+
+    @Test
+    public void shouldReplaceExpiredLeaderKeepingSubscribers() throws Exception
+    {
+        ListFW<HttpHeaderFW> headers = headers(":authority", "example.com", ":path", "/a");
+        long key = subscriptions.resourceKey(headers);
+
+        assertTrue(lead(key, headers, 0L, 1000L));
+        assertTrue(subscriptions.subscribe(key, SOURCE_REF, TARGET, TARGET_REF, headers, 11L, 500L, 500L));
+        assertFalse(lead(key, headers, 500L, 1500L));
+
+        assertFalse(subscriptions.subscribe(key, SOURCE_REF, TARGET, TARGET_REF, headers, 12L, 1000L, 1000L));
+        assertTrue(lead(key, headers, 1000L, 2000L));
+        assertEquals(1, subscriptions.subscriberCount(key));
+    }
+
+    @Test
+    public void shouldCancelLeaderOnlyWithoutSubscribers() throws Exception
+    {
+        ListFW<HttpHeaderFW> headers = headers(":authority", "example.com", ":path", "/a");
+        long key = subscriptions.resourceKey(headers);
+
+        int slot = slab.acquire(1L);
+        int size = storedHeaders.store(slot, headers, null);
+        assertTrue(subscriptions.lead(key, SOURCE_REF, TARGET, TARGET_REF, headers, slot, size, 0L, 0L, 1000L));
+        assertTrue(subscriptions.subscribe(key, SOURCE_REF, TARGET, TARGET_REF, headers, 11L, 0L, 0L));
+        assertFalse(subscriptions.cancel(key, slot));
+
+        LongArrayList subscribers = new LongArrayList();
+        assertEquals(1, subscriptions.fanOut(key, subscribers::addLong));
+
+        assertTrue(subscriptions.lead(key, SOURCE_REF, TARGET, TARGET_REF, headers, slot, size, 0L, 0L, 1000L));
+        assertTrue(subscriptions.cancel(key, slot));
+        assertFalse(subscriptions.subscribe(key, SOURCE_REF, TARGET, TARGET_REF, headers, 12L, 0L, 0L));
+    }
+
+    private boolean lead(
+        long key,
+        ListFW<HttpHeaderFW> headers,
+        long now,
+        long expiresAt)
+    {
+        int slot = slab.acquire(now + 1);
+        int size = storedHeaders.store(slot, headers, null);
+        return subscriptions.lead(key, SOURCE_REF, TARGET, TARGET_REF, headers, slot, size, now, now, expiresAt);
+    }
+
+    private static ListFW<HttpHeaderFW> headers(
+        String... namesAndValues)
+    {
+        MutableDirectBuffer buffer = new UnsafeBuffer(new byte[1024]);
+        HttpBeginExFW httpBeginEx = new HttpBeginExFW.Builder()
+                .wrap(buffer, 0, buffer.capacity())
+                .headers(hs ->
+                {
+                    for (int i = 0; i < namesAndValues.length; i += 2)
+                    {
+                        String name = namesAndValues[i];
+                        String value = namesAndValues[i + 1];
+                        hs.item(h -> h.representation((byte) 0).name(name).value(value));
+                    }
+                })
+                .build();
+        return new HttpBeginExFW().wrap(buffer, 0, httpBeginEx.limit()).headers();
+    }
+}
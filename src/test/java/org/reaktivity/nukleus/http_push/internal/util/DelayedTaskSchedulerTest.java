@@ -0,0 +1,155 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.http_push.internal.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.agrona.collections.IntArrayList;
+import org.junit.Test;
+
+public class DelayedTaskSchedulerTest
+{
+    private final IntArrayList run = new IntArrayList();
+    private final DelayedTaskScheduler scheduler = new DelayedTaskScheduler(this::currentTime, 4);
+
+    private long currentTime = 10L;
+
+    @Test
+    public void shouldRunTasksMergedAtSameTime() throws Exception
+    {
+        scheduler.schedule(1L, task(1));
+        scheduler.schedule(1L, task(2));
+        scheduler.schedule(2L, task(3));
+
+        scheduler.process();
+
+        assertEquals(3, run.size());
+        assertEquals(1, run.getInt(0));
+        assertEquals(2, run.getInt(1));
+        assertEquals(3, run.getInt(2));
+    }
+
+    @Test
+    public void shouldRunTaskOnlyOnceDue() throws Exception
+    {
+        scheduler.schedule(20L, task(1));
+
+        scheduler.process();
+        assertEquals(0, run.size());
+
+        currentTime = 21L;
+        scheduler.process();
+        assertEquals(1, run.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNonPositiveMaximumTasksPerCycle() throws Exception
+    {
+        new DelayedTaskScheduler(this::currentTime, 0);
+    }
+
+    @Test
+    public void shouldCarryOverTasksBeyondMaximumPerCycle() throws Exception
+    {
+        for (int i = 1; i <= 3; i++)
+        {
+            scheduler.schedule(i, task(i));
+            scheduler.schedule(i, task(10 + i));
+        }
+
+        assertEquals(4, scheduler.process());
+        assertEquals(4, run.size());
+        assertEquals(12, run.getInt(3));
+        assertEquals(7L, scheduler.lag());
+
+        assertEquals(2, scheduler.process());
+        assertEquals(13, run.getInt(5));
+        assertEquals(0L, scheduler.lag());
+        assertEquals(0, scheduler.process());
+    }
+
+    @Test
+    public void shouldCancelTaskCarriedOver() throws Exception
+    {
+        Runnable task = task(5);
+        for (int i = 1; i <= 4; i++)
+        {
+            scheduler.schedule(1L, task(i));
+        }
+        scheduler.schedule(1L, task);
+        scheduler.schedule(1L, task(6));
+
+        assertEquals(4, scheduler.process());
+        assertTrue(scheduler.cancel(1L, task));
+
+        assertEquals(1, scheduler.process());
+        assertEquals(5, run.size());
+        assertEquals(6, run.getInt(4));
+    }
+
+    @Test
+    public void shouldCancelTask() throws Exception
+    {
+        Runnable task = task(1);
+        scheduler.schedule(1L, task);
+
+        assertTrue(scheduler.cancel(1L, task));
+        assertFalse(scheduler.cancel(1L, task));
+
+        scheduler.process();
+        assertEquals(0, run.size());
+    }
+
+    @Test
+    public void shouldCancelTaskMergedAtSameTime() throws Exception
+    {
+        Runnable task1 = task(1);
+        Runnable task2 = task(2);
+        scheduler.schedule(1L, task1);
+        scheduler.schedule(1L, task2);
+
+        assertTrue(scheduler.cancel(1L, task1));
+        assertFalse(scheduler.cancel(2L, task2));
+
+        scheduler.process();
+        assertEquals(1, run.size());
+        assertEquals(2, run.getInt(0));
+    }
+
+    @Test
+    public void shouldNotCancelTaskThatRan() throws Exception
+    {
+        Runnable task = task(1);
+        scheduler.schedule(1L, task);
+        scheduler.process();
+
+        assertFalse(scheduler.cancel(1L, task));
+        assertEquals(1, run.size());
+    }
+
+    private long currentTime()
+    {
+        return currentTime;
+    }
+
+    private Runnable task(
+        int id)
+    {
+        return () -> run.addInt(id);
+    }
+}
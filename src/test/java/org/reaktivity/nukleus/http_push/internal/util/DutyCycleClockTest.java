@@ -0,0 +1,49 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.http_push.internal.util;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class DutyCycleClockTest
+{
+    private long nanoTime = 5_000_000L;
+
+    private final DutyCycleClock clock = new DutyCycleClock(() -> nanoTime);
+
+    @Test
+    public void shouldReadClockOncePerCycle() throws Exception
+    {
+        assertEquals(5L, clock.millis());
+
+        nanoTime = 7_500_000L;
+        assertEquals(5L, clock.millis());
+
+        clock.update();
+        assertEquals(7_500_000L, clock.nanoTime());
+        assertEquals(7L, clock.millis());
+    }
+
+    @Test
+    public void shouldConvertToAndFromEpochMillis() throws Exception
+    {
+        final long epochMillis = clock.toEpochMillis(clock.millis());
+
+        assertEquals(clock.millis(), clock.fromEpochMillis(epochMillis));
+        assertEquals(epochMillis + 1000L, clock.toEpochMillis(clock.millis() + 1000L));
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.http_push.internal.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class FrequencySketchTest
+{
+    @Test
+    public void shouldCountIncrements() throws Exception
+    {
+        FrequencySketch sketch = new FrequencySketch(64);
+        for (int i = 0; i < 5; i++)
+        {
+            sketch.increment(123L);
+        }
+        sketch.increment(456L);
+
+        assertEquals(5, sketch.frequency(123L));
+        assertEquals(1, sketch.frequency(456L));
+        assertEquals(0, sketch.frequency(789L));
+    }
+
+    @Test
+    public void shouldSaturateAtMaximumFrequency() throws Exception
+    {
+        FrequencySketch sketch = new FrequencySketch(64);
+        for (int i = 0; i < 100; i++)
+        {
+            sketch.increment(123L);
+        }
+
+        assertEquals(FrequencySketch.MAXIMUM_FREQUENCY, sketch.frequency(123L));
+    }
+
+    @Test
+    public void shouldHalveCountsOnceSampleIsFull() throws Exception
+    {
+        FrequencySketch sketch = new FrequencySketch(1);
+        for (int i = 0; i < 8; i++)
+        {
+            sketch.increment(123L);
+        }
+        for (long key = 1000L; key < 1100L; key++)
+        {
+            sketch.increment(key);
+        }
+
+        assertTrue(sketch.frequency(123L) < 8);
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.nukleus.http_push.internal.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.reaktivity.nukleus.http_push.internal.util.HttpHeadersUtil.INJECTED_HEADER_AND_NO_CACHE;
+import static org.reaktivity.nukleus.http_push.internal.util.HttpHeadersUtil.IS_POLL_HEADER;
+import static org.reaktivity.nukleus.http_push.internal.util.HttpHeadersUtil.NO_CACHE_CACHE_CONTROL;
+import static org.reaktivity.nukleus.http_push.internal.util.HttpHeadersUtil.NO_POLL_INTERVAL;
+import static org.reaktivity.nukleus.http_push.internal.util.HttpHeadersUtil.encodeHeaders;
+import static org.reaktivity.nukleus.http_push.internal.util.HttpHeadersUtil.parsePollIntervalMillis;
+import static org.reaktivity.nukleus.http_push.internal.util.HttpHeadersUtil.pollIntervalMillis;
+
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+import org.reaktivity.nukleus.http_push.internal.types.HttpHeaderFW;
+import org.reaktivity.nukleus.http_push.internal.types.ListFW;
+import org.reaktivity.nukleus.http_push.internal.types.stream.HttpBeginExFW;
+
+public class HttpHeadersUtilTest
+{
+    @Test
+    public void shouldParsePollIntervalInSeconds() throws Exception
+    {
+        assertEquals(0, pollIntervalMillis(header("x-retry-after", "0")));
+        assertEquals(5000, pollIntervalMillis(header("x-retry-after", "5")));
+    }
+
+    @Test
+    public void shouldParsePollIntervalInFractionalSeconds() throws Exception
+    {
+        assertEquals(250, pollIntervalMillis(header("x-retry-after", "0.25")));
+        assertEquals(1500, pollIntervalMillis(header("x-retry-after", "1.5")));
+        assertEquals(1, pollIntervalMillis(header("x-retry-after", "0.0015")));
+    }
+
+    @Test
+    public void shouldParsePollIntervalInMilliseconds() throws Exception
+    {
+        assertEquals(100, pollIntervalMillis(header("x-retry-after-ms", "100")));
+        assertEquals(5000, pollIntervalMillis(header("x-retry-after-ms", "5000")));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void shouldRejectFractionalMilliseconds() throws Exception
+    {
+        pollIntervalMillis(header("x-retry-after-ms", "100.5"));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void shouldRejectEmptyPollInterval() throws Exception
+    {
+        pollIntervalMillis(header("x-retry-after", ""));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void shouldRejectPollIntervalOutOfRange() throws Exception
+    {
+        pollIntervalMillis(header("x-retry-after", "2147484"));
+    }
+
+    @Test
+    public void shouldNotParseInvalidPollInterval() throws Exception
+    {
+        assertEquals(NO_POLL_INTERVAL, parsePollIntervalMillis(header("x-retry-after", "-1")));
+        assertEquals(NO_POLL_INTERVAL, parsePollIntervalMillis(header("x-retry-after-ms", "-100")));
+        assertEquals(NO_POLL_INTERVAL, parsePollIntervalMillis(header("x-retry-after", "")));
+        assertEquals(NO_POLL_INTERVAL, parsePollIntervalMillis(header("x-retry-after", "2147484")));
+        assertEquals(5000, parsePollIntervalMillis(header("x-retry-after", "5")));
+    }
+
+    @Test
+    public void shouldEncodeHeaders() throws Exception
+    {
+        DirectBuffer encoded = encodeHeaders("x-poll-injected", "x-http-cache-sync", "cache-control", "no-cache");
+        ListFW<HttpHeaderFW> headers = new HttpBeginExFW().wrap(encoded, 0, encoded.capacity()).headers();
+        StringBuilder decoded = new StringBuilder();
+
+        headers.forEach(h -> decoded.append(h.name().asString()).append(": ").append(h.value().asString()).append('\n'));
+
+        assertEquals("x-poll-injected: x-http-cache-sync\ncache-control: no-cache\n", decoded.toString());
+        assertEquals(encoded.capacity(), headers.limit());
+    }
+
+    @Test
+    public void shouldMatchHeadersWithoutDecoding() throws Exception
+    {
+        assertTrue(IS_POLL_HEADER.test(header("x-retry-after", "5")));
+        assertTrue(IS_POLL_HEADER.test(header("x-retry-after-ms", "5000")));
+        assertFalse(IS_POLL_HEADER.test(header("x-retry-afte", "5")));
+        assertFalse(IS_POLL_HEADER.test(header("x-retry-after-s", "5")));
+
+        assertTrue(INJECTED_HEADER_AND_NO_CACHE.test(header("x-poll-injected", "x-http-cache-sync, no-cache")));
+        assertFalse(INJECTED_HEADER_AND_NO_CACHE.test(header("x-poll-injected", "x-http-cache-sync")));
+    }
+
+    @Test
+    public void shouldMatchNoCacheAnywhereInCacheControl() throws Exception
+    {
+        assertTrue(NO_CACHE_CACHE_CONTROL.test(header("cache-control", "no-cache")));
+        assertTrue(NO_CACHE_CACHE_CONTROL.test(header("cache-control", "max-age=0, no-cache")));
+        assertFalse(NO_CACHE_CACHE_CONTROL.test(header("cache-control", "no-cach")));
+        assertFalse(NO_CACHE_CACHE_CONTROL.test(header("pragma", "no-cache")));
+    }
+
+    private static HttpHeaderFW header(
+        String name,
+        String value)
+    {
+        MutableDirectBuffer buffer = new UnsafeBuffer(new byte[256]);
+        return new HttpHeaderFW.Builder()
+                .wrap(buffer, 0, buffer.capacity())
+                .representation((byte) 0)
+                .name(name)
+                .value(value)
+                .build();
+    }
+}